@@ -0,0 +1,64 @@
+package com.benchmarks.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.client.Reductions;
+
+import reactor.core.publisher.Flux;
+import reactor.util.function.Tuple2;
+
+/**
+ * The client's per-section reductions over in-memory streams, so their cost
+ * can be told apart from network time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReductionBenchmark {
+
+    @Param({ "10", "1000", "10000" })
+    private int elements;
+
+    private Long[] counts;
+    private String[] names;
+
+    @Setup
+    public void setUp() {
+        counts = IntStream.range(0, elements).mapToObj(i -> (long) (i % 7)).toArray(Long[]::new);
+        names = IntStream.range(0, elements).mapToObj(i -> "Name " + i).toArray(String[]::new);
+    }
+
+    // REQ 8 - [count, sum] double[] state
+    @Benchmark
+    public Double average() {
+        return Reductions.average(Flux.fromArray(counts)).block();
+    }
+
+    // REQ 9 - string concatenation through an Object[] state
+    @Benchmark
+    public Tuple2<String, Integer> joinAndCount() {
+        return Reductions.joinAndCount(Flux.fromArray(names)).block();
+    }
+
+    // REQ 10 - reduce("", ...) string building
+    @Benchmark
+    public String joinTitles() {
+        return Reductions.joinTitles(Flux.fromArray(names)).block();
+    }
+}
@@ -0,0 +1,84 @@
+package com.benchmarks.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.server.model.Media;
+import com.server.model.User;
+
+/**
+ * Cost of encoding the /media and /user lists, both as one JSON array and as
+ * NDJSON lines written one entity at a time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class JacksonEncodingBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    private int rows;
+
+    private List<Media> media;
+    private List<User> users;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        media = SampleData.media(rows);
+        users = SampleData.users(rows);
+        // Same defaults as the server's Spring Boot managed mapper
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] mediaJsonArray() throws IOException {
+        return objectMapper.writeValueAsBytes(media);
+    }
+
+    @Benchmark
+    public int mediaNdjson() throws IOException {
+        return writeLines(objectMapper.writerFor(Media.class), media);
+    }
+
+    @Benchmark
+    public byte[] userJsonArray() throws IOException {
+        return objectMapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public int userNdjson() throws IOException {
+        return writeLines(objectMapper.writerFor(User.class), users);
+    }
+
+    private static int writeLines(ObjectWriter writer, List<?> values) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Object value : values) {
+            out.write(writer.writeValueAsBytes(value));
+            out.write('\n');
+        }
+        return out.size();
+    }
+}
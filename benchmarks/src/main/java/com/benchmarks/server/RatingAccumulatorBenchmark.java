@@ -0,0 +1,62 @@
+package com.benchmarks.server;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.server.service.RatingAccumulator;
+
+/**
+ * Throughput of tallying ratings from many threads at once: the striped tallies
+ * of {@link RatingAccumulator} against a single atomic counter per media
+ * holding the same packed count and total. With one media every rating
+ * contends for the same counter, the burst the accumulator is meant for.
+ * Tallies are never flushed, as no flusher is started outside Spring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@Threads(8)
+public class RatingAccumulatorBenchmark {
+
+    @Param({ "1", "100" })
+    private int mediaCount;
+
+    private RatingAccumulator accumulator;
+    private AtomicLongArray counters;
+
+    @Setup
+    public void setUp() {
+        accumulator = new RatingAccumulator();
+        counters = new AtomicLongArray(mediaCount);
+    }
+
+    @Benchmark
+    public boolean striped() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return accumulator.add(random.nextInt(mediaCount) + 1, random.nextInt(1001) / 100.0);
+    }
+
+    @Benchmark
+    public void singleCounter() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long hundredths = Math.round(random.nextInt(1001) / 100.0 * 100);
+        counters.addAndGet(random.nextInt(mediaCount), (1L << 40) + hundredths);
+    }
+}
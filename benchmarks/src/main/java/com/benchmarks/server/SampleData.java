@@ -0,0 +1,55 @@
+package com.benchmarks.server;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+import com.server.model.Media;
+import com.server.model.Relationship;
+import com.server.model.User;
+
+/**
+ * Deterministic synthetic catalogs shaped like the seeded one.
+ */
+final class SampleData {
+
+    private static final long SEED = 42;
+
+    private SampleData() {
+    }
+
+    static List<Media> media(int rows) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        return LongStream.rangeClosed(1, rows)
+                .mapToObj(id -> new Media(id, "Title " + id,
+                        LocalDate.of(1950, 1, 1).plusDays(random.nextInt(27_000)),
+                        random.nextInt(1001) / 100.0,
+                        random.nextBoolean() ? Media.MediaType.MOVIE : Media.MediaType.TV_SHOW,
+                        random.nextInt(20)))
+                .toList();
+    }
+
+    static List<User> users(int rows) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        User.Gender[] genders = User.Gender.values();
+        return LongStream.rangeClosed(1, rows)
+                .mapToObj(id -> new User(id, "User " + id, 18 + random.nextInt(60),
+                        genders[random.nextInt(genders.length)]))
+                .toList();
+    }
+
+    // Every media item gets between 0 and 2 * perMedia subscribers
+    static List<Relationship> relationships(int mediaRows, int userRows, int perMedia) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        List<Relationship> relationships = new ArrayList<>();
+        for (long mediaId = 1; mediaId <= mediaRows; mediaId++) {
+            int subscribers = random.nextInt(2 * perMedia + 1);
+            for (int i = 0; i < subscribers; i++) {
+                relationships.add(new Relationship(mediaId, 1 + random.nextInt(userRows)));
+            }
+        }
+        return relationships;
+    }
+}
@@ -0,0 +1,121 @@
+package com.benchmarks.server;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.server.model.Media;
+import com.server.model.MediaUsers;
+import com.server.model.Relationship;
+import com.server.model.User;
+import com.server.service.MediaService;
+import com.server.service.UserService;
+
+/**
+ * Service-layer overhead on top of the repositories: cache hits and misses,
+ * full-list streaming and the grouping of batched relationship lookups, with
+ * the database replaced by {@link StandInRepositories}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    private static final int LOOKUP_BATCH = 500;
+
+    @Param({ "1000", "100000" })
+    private int rows;
+
+    private MediaService cachedMediaService;
+    private MediaService uncachedMediaService;
+    private UserService userService;
+    private List<Long> lookupIds;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        List<Media> media = SampleData.media(rows);
+        List<User> users = SampleData.users(rows);
+        List<Relationship> relationships = SampleData.relationships(rows, rows, 2);
+
+        cachedMediaService = mediaService(media, relationships, Caffeine.newBuilder().maximumSize(rows));
+        uncachedMediaService = mediaService(media, relationships, Caffeine.newBuilder().maximumSize(0));
+
+        userService = new UserService();
+        inject(userService, "userRepository", StandInRepositories.users(users));
+        inject(userService, "relationshipRepository", StandInRepositories.relationships(relationships));
+        inject(userService, "userCache", Caffeine.newBuilder().maximumSize(rows).recordStats().buildAsync());
+        inject(userService, "mediaCache", Caffeine.newBuilder().maximumSize(rows).recordStats().buildAsync());
+
+        lookupIds = LongStream.rangeClosed(1, Math.min(LOOKUP_BATCH, rows)).boxed().toList();
+        for (long id = 1; id <= rows; id++) {
+            cachedMediaService.getMediaById(id).block();
+            userService.getUserById(id).block();
+        }
+    }
+
+    @Benchmark
+    public Media getMediaByIdCacheHit() {
+        return cachedMediaService.getMediaById(randomId()).block();
+    }
+
+    @Benchmark
+    public Media getMediaByIdCacheMiss() {
+        return uncachedMediaService.getMediaById(randomId()).block();
+    }
+
+    @Benchmark
+    public User getUserByIdCacheHit() {
+        return userService.getUserById(randomId()).block();
+    }
+
+    @Benchmark
+    public Long getAllMedia() {
+        return cachedMediaService.getAllMedia(0, null).count().block();
+    }
+
+    @Benchmark
+    public List<MediaUsers> getUsersByMediaIds() {
+        return cachedMediaService.getUsersByMediaIds(lookupIds).collectList().block();
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1);
+    }
+
+    private static MediaService mediaService(List<Media> media, List<Relationship> relationships,
+            Caffeine<Object, Object> cache) throws ReflectiveOperationException {
+        MediaService service = new MediaService();
+        inject(service, "mediaRepository", StandInRepositories.media(media));
+        inject(service, "relationshipRepository", StandInRepositories.relationships(relationships));
+        // Run maintenance on the caller so a size-0 cache evicts before the next lookup
+        AsyncCache<Long, Media> mediaCache = cache.executor(Runnable::run).recordStats().buildAsync();
+        inject(service, "mediaCache", mediaCache);
+        return service;
+    }
+
+    // The services use field injection, so wire them the way Spring would
+    private static void inject(Object target, String fieldName, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,96 @@
+package com.benchmarks.server;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.server.model.Media;
+import com.server.model.Relationship;
+import com.server.model.User;
+import com.server.repository.MediaRepository;
+import com.server.repository.RelationshipRepository;
+import com.server.repository.UserRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory stand-ins for the R2DBC repositories, implementing just the
+ * methods the benchmarked service paths call. Anything else fails loudly so a
+ * benchmark cannot silently measure an unimplemented path.
+ */
+final class StandInRepositories {
+
+    private StandInRepositories() {
+    }
+
+    static MediaRepository media(List<Media> media) {
+        NavigableMap<Long, Media> byId = media.stream()
+                .collect(Collectors.toMap(Media::getId, Function.identity(), (a, b) -> a, TreeMap::new));
+        return proxy(MediaRepository.class, (proxy, method, args) -> switch (method.getName()) {
+            case "findById" -> Mono.justOrEmpty(byId.get((Long) args[0]));
+            case "findAll" -> Flux.fromIterable(byId.values());
+            case "findPage" -> page(byId, (long) args[0], (Integer) args[1]);
+            default -> unsupported(proxy, method.getName(), args);
+        });
+    }
+
+    static UserRepository users(List<User> users) {
+        NavigableMap<Long, User> byId = users.stream()
+                .collect(Collectors.toMap(User::getId, Function.identity(), (a, b) -> a, TreeMap::new));
+        return proxy(UserRepository.class, (proxy, method, args) -> switch (method.getName()) {
+            case "findById" -> Mono.justOrEmpty(byId.get((Long) args[0]));
+            case "findAll" -> Flux.fromIterable(byId.values());
+            case "findPage" -> page(byId, (long) args[0], (Integer) args[1]);
+            default -> unsupported(proxy, method.getName(), args);
+        });
+    }
+
+    static RelationshipRepository relationships(List<Relationship> relationships) {
+        Map<Long, List<Relationship>> byMedia = group(relationships, Relationship::getMediaId,
+                Relationship::getUserId);
+        Map<Long, List<Relationship>> byUser = group(relationships, Relationship::getUserId,
+                Relationship::getMediaId);
+        return proxy(RelationshipRepository.class, (proxy, method, args) -> switch (method.getName()) {
+            case "findByMediaId" -> Flux.fromIterable(byMedia.getOrDefault((Long) args[0], List.of()));
+            case "findByUserId" -> Flux.fromIterable(byUser.getOrDefault((Long) args[0], List.of()));
+            case "findByMediaIds" -> Flux.fromStream(Arrays.stream((Long[]) args[0]).sorted()
+                    .flatMap(id -> byMedia.getOrDefault(id, List.of()).stream()));
+            case "findByUserIds" -> Flux.fromStream(Arrays.stream((Long[]) args[0]).sorted()
+                    .flatMap(id -> byUser.getOrDefault(id, List.of()).stream()));
+            default -> unsupported(proxy, method.getName(), args);
+        });
+    }
+
+    private static <T> Flux<T> page(NavigableMap<Long, T> byId, long after, Integer limit) {
+        Flux<T> rows = Flux.fromIterable(byId.tailMap(after, false).values());
+        return limit == null ? rows : rows.take(limit);
+    }
+
+    private static Map<Long, List<Relationship>> group(List<Relationship> relationships,
+            Function<Relationship, Long> key, Function<Relationship, Long> order) {
+        return relationships.stream()
+                .sorted(Comparator.comparing(order))
+                .collect(Collectors.groupingBy(key));
+    }
+
+    private static Object unsupported(Object proxy, String method, Object[] args) {
+        return switch (method) {
+            case "toString" -> "StandIn@" + System.identityHashCode(proxy);
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> throw new UnsupportedOperationException(method + " is not implemented by the stand-in");
+        };
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+}
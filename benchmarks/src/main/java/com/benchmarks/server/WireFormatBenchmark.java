@@ -0,0 +1,136 @@
+package com.benchmarks.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.server.config.CodecConfig;
+import com.server.model.Media;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Bytes on the wire and CPU per row of the /media stream in each encoding the
+ * server negotiates: the server's encoder producing it, and the client's
+ * decoder reading it back into the client model from network-sized chunks.
+ * Scores are per row; the encoded size is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class WireFormatBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final int CHUNK_SIZE = 8192;
+    private static final ResolvableType SERVER_MEDIA = ResolvableType.forClass(Media.class);
+    private static final ResolvableType CLIENT_MEDIA = ResolvableType.forClass(com.client.Media.class);
+
+    public enum Format {
+        JSON, SMILE
+    }
+
+    @Param
+    private Format format;
+
+    private List<Media> media;
+    private Encoder<Object> encoder;
+    private Decoder<Object> decoder;
+    private MimeType streamType;
+    private List<byte[]> chunks;
+
+    @Setup
+    public void setUp() {
+        media = SampleData.media(ROWS);
+        // Same defaults as the Spring Boot managed mappers on both sides
+        if (format == Format.JSON) {
+            ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+                    .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    .build();
+            encoder = new Jackson2JsonEncoder(mapper);
+            decoder = new Jackson2JsonDecoder(mapper);
+            streamType = MediaType.APPLICATION_NDJSON;
+        } else {
+            ObjectMapper mapper = Jackson2ObjectMapperBuilder.smile()
+                    .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    .build();
+            encoder = new Jackson2SmileEncoder(mapper, MimeType.valueOf(CodecConfig.SMILE_VALUE),
+                    MimeType.valueOf(CodecConfig.SMILE_STREAM_VALUE));
+            decoder = new Jackson2SmileDecoder(mapper, MimeType.valueOf(CodecConfig.SMILE_VALUE),
+                    MimeType.valueOf(CodecConfig.SMILE_STREAM_VALUE));
+            streamType = MimeType.valueOf(CodecConfig.SMILE_STREAM_VALUE);
+        }
+
+        byte[] body = DataBufferUtils.join(encode())
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .block();
+        chunks = new ArrayList<>();
+        for (int offset = 0; offset < body.length; offset += CHUNK_SIZE) {
+            chunks.add(Arrays.copyOfRange(body, offset, Math.min(body.length, offset + CHUNK_SIZE)));
+        }
+        System.out.printf("%n%s: %d bytes for %d rows, %.1f bytes/row%n", format, body.length, ROWS,
+                (double) body.length / ROWS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long encodeStream() {
+        return encode()
+                .map(buffer -> {
+                    int size = buffer.readableByteCount();
+                    DataBufferUtils.release(buffer);
+                    return (long) size;
+                })
+                .reduce(0L, Long::sum)
+                .block();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long decodeStream() {
+        Flux<DataBuffer> body = Flux.fromIterable(chunks)
+                .map(DefaultDataBufferFactory.sharedInstance::wrap);
+        return decoder.decode(body, CLIENT_MEDIA, streamType, null).count().block();
+    }
+
+    private Flux<DataBuffer> encode() {
+        return encoder.encode(Flux.fromIterable(media), DefaultDataBufferFactory.sharedInstance, SERVER_MEDIA,
+                streamType, null);
+    }
+}
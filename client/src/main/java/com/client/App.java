@@ -1,19 +1,21 @@
 package com.client;
 
-import java.time.Duration;
 import java.time.LocalDate;
-import java.util.Comparator;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.util.retry.Retry;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 /**
  * The main application class that runs a Spring Boot application as a
@@ -22,19 +24,55 @@ import reactor.util.retry.Retry;
  * data retrieval tasks in a non-blocking, reactive manner.
  */
 @SpringBootApplication
+@EnableConfigurationProperties({ ClientProperties.class, LoadTestProperties.class })
 @Slf4j
 public class App implements CommandLineRunner {
 
     private final WebClient webClient;
+    private final MemoizingClient memoizingClient;
+    private final ClientProperties clientProperties;
+    private final LoadTestProperties loadTestProperties;
 
     /**
-     * Constructor to initialize the WebClient with a base URL.
+     * Constructor to initialize the WebClient with a base URL and a connection
+     * pool sized by the client properties.
      * 
-     * @param webClientBuilder - the WebClient.Builder to configure the WebClient
+     * @param webClientBuilder   - the WebClient.Builder to configure the WebClient
+     * @param clientProperties   - the HTTP client and fan-out settings
+     * @param loadTestProperties - the settings of the load-test mode
      */
     @Autowired
-    public App(WebClient.Builder webClientBuilder) {
-        this.webClient = webClientBuilder.baseUrl("http://host.docker.internal:8080").build();
+    public App(WebClient.Builder webClientBuilder, ClientProperties clientProperties,
+            LoadTestProperties loadTestProperties) {
+        this.webClient = webClientBuilder
+                .baseUrl("http://host.docker.internal:8080")
+                .clientConnector(new ReactorClientHttpConnector(createHttpClient(clientProperties)))
+                .build();
+        this.memoizingClient = new MemoizingClient(webClient, clientProperties.getEncoding(),
+                clientProperties.getMaxMemoizedRequests());
+        this.clientProperties = clientProperties;
+        this.loadTestProperties = loadTestProperties;
+    }
+
+    /**
+     * Builds the HTTP client over a bounded connection pool, speaking h2c when
+     * enabled so concurrent requests share a few multiplexed connections.
+     * 
+     * @param properties - the HTTP client settings
+     * @return HttpClient - the configured Reactor Netty client
+     */
+    private static HttpClient createHttpClient(ClientProperties properties) {
+        ClientProperties.Pool pool = properties.getPool();
+        ConnectionProvider provider = ConnectionProvider.builder("client")
+                .maxConnections(pool.getMaxConnections())
+                .pendingAcquireMaxCount(pool.getMaxPendingAcquires())
+                .pendingAcquireTimeout(pool.getPendingAcquireTimeout())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .evictInBackground(pool.getEvictionInterval())
+                .build();
+        // Accept gzip-compressed responses
+        HttpClient httpClient = HttpClient.create(provider).compress(true);
+        return properties.isHttp2() ? httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11) : httpClient;
     }
 
     /**
@@ -48,18 +86,33 @@ public class App implements CommandLineRunner {
 
     /**
      * Executes when the application starts, triggering various media requests
-     * and logging the results.
+     * and logging the results, or running the load test when
+     * {@code loadtest.enabled} is set.
      * 
-     * It concatenates multiple requests into a single reactive Flux and logs
-     * each output.
+     * It runs the report sections concurrently, bounded by
+     * {@code client.section-concurrency}, and logs their output in section
+     * order.
      *
      * @param args - command line arguments
      */
     @Override
     public void run(String... args) {
-        // Concatenate multiple requests into a single reactive Flux and log each
-        // output
-        Flux<String> outputFlux = Flux.concat(
+        if (loadTestProperties.isEnabled()) {
+            // Generate load instead of running the report
+            new LoadGenerator(webClient, loadTestProperties).run()
+                    .doOnNext(line -> log.info(line))
+                    .onErrorResume(error -> {
+                        log.error("ERROR: Load test failed: {}", error.getMessage());
+                        return Flux.empty();
+                    })
+                    .subscribe();
+            return;
+        }
+
+        // Run up to section-concurrency requests at once and log each output in
+        // section order; a later section's lines are buffered until the sections
+        // before it have completed
+        Flux<String> outputFlux = Flux.just(
                 req1(),
                 req2(),
                 req3(),
@@ -70,6 +123,8 @@ public class App implements CommandLineRunner {
                 req8(),
                 req9(),
                 req10())
+                .flatMapSequential(section -> section, clientProperties.getSectionConcurrency(),
+                        Integer.MAX_VALUE)
                 .doOnNext(line -> log.info(line))
                 .onErrorResume(error -> {
                     log.error("ERROR: Failed to run this client");
@@ -86,14 +141,7 @@ public class App implements CommandLineRunner {
      * @return Flux<String> - A Flux stream of media titles and release dates
      */
     private Flux<String> req1() {
-        return webClient.get()
-                .uri("/media")
-                .retrieve()
-                .bodyToFlux(Media.class)
-                .retryWhen(Retry.fixedDelay(3, Duration.ofSeconds(1))
-                        .doBeforeRetry(retrySignal -> log.info(
-                                "Connection with the server not successful. Attempt {}... Trying again...",
-                                retrySignal.totalRetries() + 1)))
+        return getAllMedia()
                 .map(media -> "Title: " + media.getTitle() + ", Release Date: " + media.getReleaseDate())
                 .startWith("---------------------REQ 1------------------------");
     }
@@ -104,12 +152,8 @@ public class App implements CommandLineRunner {
      * @return Flux<String> - A Flux containing the total media count message
      */
     private Flux<String> req2() {
-        return webClient.get()
-                .uri("/media")
-                .retrieve()
-                .bodyToFlux(Media.class)
-                .count()
-                .map(totalCount -> "Total Media Count: " + totalCount)
+        return getMediaStats()
+                .map(stats -> "Total Media Count: " + stats.getCount())
                 .flux()
                 .startWith("---------------------REQ 2------------------------");
     }
@@ -121,13 +165,8 @@ public class App implements CommandLineRunner {
      * @return Flux<String> - A Flux containing the count of high-rated media items
      */
     private Flux<String> req3() {
-        return webClient.get()
-                .uri("/media")
-                .retrieve()
-                .bodyToFlux(Media.class)
-                .filter(media -> media.getAverageRating() > 8)
-                .count()
-                .map(count -> "Total Really Good Media Count (Rating > 8): " + count)
+        return getMediaStats()
+                .map(stats -> "Total Really Good Media Count (Rating > 8): " + stats.getHighlyRatedCount())
                 .flux()
                 .startWith("---------------------REQ 3------------------------");
     }
@@ -139,17 +178,8 @@ public class App implements CommandLineRunner {
      * @return Flux<String> - A Flux containing the media count message
      */
     private Flux<String> req4() {
-        return webClient.get()
-                .uri("/media")
-                .retrieve()
-                .bodyToFlux(Media.class)
-                .flatMap(media -> webClient.get()
-                        .uri("/media/" + media.getId() + "/users")
-                        .retrieve()
-                        .bodyToFlux(Long.class)
-                        .hasElements()
-                        .filter(hasUsers -> hasUsers)
-                        .map(hasUsers -> media))
+        return getAllMedia()
+                .filter(media -> media.getSubscriberCount() > 0)
                 .count()
                 .map(count -> "Subscribed Media Count: " + count)
                 .flux()
@@ -157,20 +187,15 @@ public class App implements CommandLineRunner {
     }
 
     /**
-     * Reactive method for REQ 5 - Retrieves and sorts media items from the 1980s
-     * by their rating in ascending order.
+     * Reactive method for REQ 5 - Retrieves media items from the 1980s sorted by
+     * their rating in ascending order, both done by the server.
      * 
      * @return Flux<String> - A Flux stream of sorted media information from the
      *         1980s
      */
     private Flux<String> req5() {
-        return webClient.get()
-                .uri("/media")
-                .retrieve()
-                .bodyToFlux(Media.class)
-                .filter(media -> media.getReleaseDate().isAfter(LocalDate.of(1980, 1, 1))
-                        && media.getReleaseDate().isBefore(LocalDate.of(1989, 12, 31)))
-                .sort((m1, m2) -> Double.compare(m1.getAverageRating(), m2.getAverageRating()))
+        return memoizingClient.getFlux("/media?releasedFrom={from}&releasedTo={to}&sort=averageRating,asc",
+                Media.class, LocalDate.of(1980, 1, 1), LocalDate.of(1989, 12, 31))
                 .map(media -> media.toString())
                 .startWith("---------------------REQ 5------------------------");
     }
@@ -183,23 +208,10 @@ public class App implements CommandLineRunner {
      *         of media ratings
      */
     private Flux<String> req6() {
-        return webClient.get()
-                .uri("/media")
-                .retrieve()
-                .bodyToFlux(Media.class)
-                .map(Media::getAverageRating)
-                .reduce(new double[] { 0, 0, 0 }, (acc, rating) -> {
-                    acc[0] += rating; // sum of ratings
-                    acc[1] += 1; // count
-                    acc[2] += rating * rating; // sum of squares
-                    return acc;
-                })
-                .flatMapMany(result -> {
-                    double sum = result[0];
-                    double count = result[1];
-                    double sumOfSquares = result[2];
-                    double average = count > 0 ? sum / count : 0.0;
-                    double stdDev = count > 0 ? Math.sqrt((sumOfSquares / count) - (average * average)) : 0.0;
+        return getMediaStats()
+                .flatMapMany(stats -> {
+                    double average = stats.getAverageRating() != null ? stats.getAverageRating() : 0.0;
+                    double stdDev = stats.getRatingStdDev() != null ? stats.getRatingStdDev() : 0.0;
 
                     return Flux.just(
                             "---------------------REQ 6------------------------",
@@ -208,20 +220,47 @@ public class App implements CommandLineRunner {
                 });
     }
 
+    /**
+     * Retrieves every media item as an NDJSON stream, so items are emitted as
+     * soon as each line arrives instead of after the whole list is parsed. The
+     * sections share a single download of the catalog.
+     * 
+     * @return Flux<Media> - A Flux stream of all media items
+     */
+    private Flux<Media> getAllMedia() {
+        return memoizingClient.getFlux("/media", Media.class);
+    }
+
+    /**
+     * Retrieves every user with their media embedded as an NDJSON stream, read
+     * by the server with a single join.
+     * 
+     * @return Flux<UserWithMedia> - A Flux stream of all users and their media
+     */
+    private Flux<UserWithMedia> getAllUsersWithMedia() {
+        return memoizingClient.getFlux("/user?expand=media", UserWithMedia.class);
+    }
+
+    /**
+     * Retrieves the aggregate statistics of the media catalog, computed by the
+     * server instead of downloading every media item. The sections share a
+     * single request.
+     * 
+     * @return Mono<MediaStats> - A Mono containing the catalog statistics
+     */
+    private Mono<MediaStats> getMediaStats() {
+        return memoizingClient.getMono("/media/stats", MediaStats.class);
+    }
+
     /**
      * Reactive method for REQ 7 - Finds the oldest media item based on the release
-     * date.
+     * date, as the first of the catalog sorted by the server.
      * 
      * @return Flux<String> - A Flux containing the oldest media item
      */
     private Flux<String> req7() {
-        return webClient.get()
-                .uri("/media")
-                .retrieve()
-                .bodyToFlux(Media.class)
-                .reduce((m1, m2) -> m1.getReleaseDate().isBefore(m2.getReleaseDate()) ? m1 : m2)
+        return memoizingClient.getFlux("/media?sort=releaseDate,asc&limit=1", Media.class)
                 .map(media -> media.toString())
-                .flux()
                 .startWith("---------------------REQ 7------------------------");
     }
 
@@ -233,33 +272,12 @@ public class App implements CommandLineRunner {
      *         media item
      */
     private Flux<String> req8() {
-        return webClient.get()
-                .uri("/media")
-                .retrieve()
-                .bodyToFlux(Media.class)
-                .flatMap(media -> countUsersForMedia(media.getId()))
-                .reduce(new double[] { 0, 0 }, (acc, mediaUsersCount) -> {
-                    acc[0] += 1;
-                    acc[1] += mediaUsersCount;
-                    return acc;
-                })
-                .flatMapMany(result -> {
-                    double average = result[0] == 0 ? 0 : result[1] / result[0];
-                    return Flux.just(
-                            "---------------------REQ 8------------------------",
-                            "Average number of users per media item: " + average);
-                });
-    }
-
-    /**
-     * Retrieves the number of users associated with a specific media item.
-     * 
-     * @param mediaId - The ID of the media item
-     * @return Flux<Long> - A Flux containing the count of users for the media item
-     */
-    private Mono<Long> countUsersForMedia(long mediaId) {
-        return getUsersForMedia(mediaId)
-                .count();
+        return getAllMedia()
+                .map(Media::getSubscriberCount)
+                .as(Reductions::average)
+                .flatMapMany(average -> Flux.just(
+                        "---------------------REQ 8------------------------",
+                        "Average number of users per media item: " + average));
     }
 
     /**
@@ -270,62 +288,25 @@ public class App implements CommandLineRunner {
      *         information
      */
     private Flux<String> req9() {
-        return webClient.get()
-                .uri("/media")
-                .retrieve()
-                .bodyToFlux(Media.class)
-                .flatMap(media -> getUsersForMedia(media.getId())
-                        .flatMap(this::getUserDetails)
-                        .sort(Comparator.comparingInt(UserInfo::getAge).reversed())
-                        .reduce(
-                                new Object[] { "", 0 }, // Initial state: [userString, count,
-                                                        // formattedDetails]
-                                (state, user) -> {
-                                    state[0] = state[0] + user.getName() + ", ";
-                                    state[1] = (int) state[1] + 1;
-                                    return state;
-                                })
-                        .map(state -> {
-                            String userString = (String) state[0];
-                            int count = (int) state[1];
-
-                            // Remove the trailing comma and space, if present
-                            if (userString.endsWith(", ")) {
-                                userString = userString.substring(0, userString.length() - 2);
-                            }
-
-                            // Return the formatted result with the user count
-                            return String.format("Media Title: %s - Users: [%s] - Total Users: %d", media.getTitle(),
-                                    userString, count);
-                        }))
+        return getAllMedia()
+                .flatMapSequential(media -> getSubscribersByAge(media.getId())
+                        .map(User::getName)
+                        .as(Reductions::joinAndCount)
+                        .map(users -> String.format("Media Title: %s - Users: [%s] - Total Users: %d",
+                                media.getTitle(), users.getT1(), users.getT2())),
+                        clientProperties.getConcurrency())
                 .startWith("---------------------REQ 9------------------------");
     }
 
     /**
-     * Retrieves the users associated with a media item.
+     * Retrieves the subscribers of a media item, sorted by age in descending
+     * order by the server.
      * 
      * @param mediaId - The ID of the media item
-     * @return Flux<Long> - A Flux containing the user IDs
+     * @return Flux<User> - A Flux stream of the subscribers, oldest first
      */
-    private Flux<Long> getUsersForMedia(long mediaId) {
-        return webClient.get()
-                .uri("/media/" + mediaId + "/users")
-                .retrieve()
-                .bodyToFlux(Long.class); // Returns user IDs for the media item
-    }
-
-    /**
-     * Retrieves detailed user information based on user ID.
-     * 
-     * @param userId - The ID of the user
-     * @return Mono<User> - A Mono containing the user details
-     */
-    private Mono<UserInfo> getUserDetails(Long userId) {
-        return webClient.get()
-                .uri("/user/" + userId)
-                .retrieve()
-                .bodyToMono(User.class)
-                .map(user -> new UserInfo(user.getName(), user.getAge())); // Returns user details from user
+    private Flux<User> getSubscribersByAge(long mediaId) {
+        return memoizingClient.getFlux("/media/{id}/users?expand=users&sort=age,desc", User.class, mediaId);
     }
 
     /**
@@ -335,54 +316,24 @@ public class App implements CommandLineRunner {
      * @return Flux<String> - A Flux containing the formatted user and media details
      */
     private Flux<String> req10() {
-        return webClient.get()
-                .uri("/user")
-                .retrieve()
-                .bodyToFlux(User.class)
-                .flatMap(user -> getMediaForUser(user.getId())
-                        .flatMap(this::getMediaTitle)
-                        .reduce("", (result, title) -> result.isEmpty() ? title : result + ", " + title)
+        return getAllUsersWithMedia()
+                .concatMap(user -> Flux.fromIterable(user.getMedia())
+                        .map(MediaSummary::getTitle)
+                        .as(Reductions::joinTitles)
                         .map(mediaTitles -> formatUserWithMedia(user, mediaTitles)))
                 .startWith("---------------------REQ 10------------------------");
     }
 
-    /**
-     * Retrieves the media items associated with a specific user.
-     * 
-     * @param userId - The ID of the user
-     * @return Flux<Long> - A Flux containing media IDs
-     */
-    private Flux<Long> getMediaForUser(Long userId) {
-        return webClient.get()
-                .uri("/user/" + userId + "/media")
-                .retrieve()
-                .bodyToFlux(Long.class);
-    }
-
-    /**
-     * Retrieves the title of a media item based on its ID.
-     * 
-     * @param mediaId - The ID of the media item
-     * @return Mono<String> - A Mono containing the media title
-     */
-    private Mono<String> getMediaTitle(Long mediaId) {
-        return webClient.get()
-                .uri("/media/" + mediaId)
-                .retrieve()
-                .bodyToMono(Media.class)
-                .map(Media::getTitle);
-    }
-
     /**
      * Formats a user's details along with the titles of the media items they are
      * associated with.
      * 
-     * @param user        - The user object
+     * @param user        - The user with their media
      * @param mediaTitles - The list of media titles the user is associated with
      * @return String - The formatted string containing the user and media
      *         information
      */
-    private String formatUserWithMedia(User user, String mediaTitles) {
+    private String formatUserWithMedia(UserWithMedia user, String mediaTitles) {
         return String.format("User(%d): %s, Age: %d, Gender: %s, Subscribed Media: [%s]",
                 user.getId(), user.getName(), user.getAge(), user.getGender(), mediaTitles);
     }
@@ -0,0 +1,96 @@
+package com.client;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.MediaType;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+
+/**
+ * Settings of the HTTP client and of the report's request fan-out, bound from
+ * the {@code client.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "client")
+public class ClientProperties {
+
+    /**
+     * Maximum number of requests a report section keeps in flight at once.
+     */
+    private int concurrency = 8;
+
+    /**
+     * Maximum number of report sections running at once. Their output is still
+     * logged in section order; 1 runs the sections one after another.
+     */
+    private int sectionConcurrency = 4;
+
+    /**
+     * Maximum number of distinct responses the report keeps for reuse by later
+     * sections.
+     */
+    private long maxMemoizedRequests = 10_000;
+
+    /**
+     * Whether to talk HTTP/2 over cleartext (h2c) to the server, falling back
+     * to HTTP/1.1 when the server does not upgrade.
+     */
+    private boolean http2 = true;
+
+    /**
+     * Encoding the report asks the server for.
+     */
+    private Encoding encoding = Encoding.JSON;
+
+    private Pool pool = new Pool();
+
+    /**
+     * Encodings the server can answer in, each with its single-document and
+     * streaming media type.
+     */
+    @Getter
+    @AllArgsConstructor
+    public enum Encoding {
+        JSON(MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON),
+        SMILE(MediaType.valueOf("application/x-jackson-smile"), MediaType.valueOf("application/stream+x-jackson-smile"));
+
+        private final MediaType documentType;
+        private final MediaType streamType;
+    }
+
+    /**
+     * Settings of the connection pool.
+     */
+    @Data
+    public static class Pool {
+
+        /**
+         * Maximum number of open connections to the server.
+         */
+        private int maxConnections = 16;
+
+        /**
+         * Maximum number of requests waiting for a free connection; further
+         * requests fail instead of queueing.
+         */
+        private int maxPendingAcquires = 256;
+
+        /**
+         * How long a request may wait for a free connection.
+         */
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(30);
+
+        /**
+         * Idle connections older than this are closed.
+         */
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+
+        /**
+         * How often idle connections are evicted in the background.
+         */
+        private Duration evictionInterval = Duration.ofSeconds(60);
+    }
+}
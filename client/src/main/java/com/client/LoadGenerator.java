@@ -0,0 +1,243 @@
+package com.client;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.client.LoadTestProperties.Endpoint;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+/**
+ * Drives a weighted mix of the server endpoints for a fixed duration and
+ * reports per-endpoint throughput and latency percentiles.
+ *
+ * With a target rate the requests are issued on a fixed schedule (open loop)
+ * and each latency is measured from the moment the request was due, so time
+ * spent waiting for a free slot counts against the server instead of being
+ * silently skipped. Without one, each of the concurrent slots sends its next
+ * request as soon as the previous one completes (closed loop).
+ */
+public class LoadGenerator {
+
+    /**
+     * Longest latency the histograms can record, in microseconds.
+     */
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final WebClient webClient;
+    private final LoadTestProperties properties;
+    private final Endpoint[] endpoints;
+    private final int[] cumulativeWeights;
+
+    private final Map<Endpoint, Histogram> latencies = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, AtomicLong> errors = new EnumMap<>(Endpoint.class);
+
+    /**
+     * Constructor to initialize the load generator.
+     *
+     * @param webClient  - the WebClient pointing at the server
+     * @param properties - the load-test settings
+     */
+    public LoadGenerator(WebClient webClient, LoadTestProperties properties) {
+        if (properties.getConcurrency() < 1) {
+            throw new IllegalArgumentException("loadtest.concurrency must be at least 1");
+        }
+        if (properties.getRate() < 0) {
+            throw new IllegalArgumentException("loadtest.rate must not be negative");
+        }
+
+        this.webClient = webClient;
+        this.properties = properties;
+
+        List<Map.Entry<Endpoint, Integer>> weighted = properties.getMix().entrySet().stream()
+                .filter(entry -> entry.getValue() != null && entry.getValue() > 0)
+                .toList();
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix must give at least one endpoint a positive weight");
+        }
+
+        this.endpoints = new Endpoint[weighted.size()];
+        this.cumulativeWeights = new int[weighted.size()];
+        int total = 0;
+        for (int i = 0; i < weighted.size(); i++) {
+            total += weighted.get(i).getValue();
+            endpoints[i] = weighted.get(i).getKey();
+            cumulativeWeights[i] = total;
+        }
+
+        for (Endpoint endpoint : Endpoint.values()) {
+            latencies.put(endpoint, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(endpoint, new AtomicLong());
+        }
+    }
+
+    /**
+     * Loads the existing media and users, generates load against them for the
+     * configured duration and reports the results.
+     *
+     * @return Flux<String> - A Flux stream of report lines, emitted once the
+     *         load test has finished
+     */
+    public Flux<String> run() {
+        return Mono.zip(
+                webClient.get().uri("/media")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .retrieve()
+                        .bodyToFlux(Media.class)
+                        .collectList(),
+                webClient.get().uri("/user")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .retrieve()
+                        .bodyToFlux(User.class)
+                        .map(User::getId)
+                        .collectList())
+                .flatMapMany(data -> {
+                    if (data.getT1().isEmpty() || data.getT2().isEmpty()) {
+                        return Flux.error(new IllegalStateException(
+                                "The load test needs at least one media and one user on the server"));
+                    }
+                    long start = System.nanoTime();
+                    return generate(data, start)
+                            .then(Mono.fromCallable(() -> System.nanoTime() - start))
+                            .flatMapMany(this::report);
+                })
+                .startWith("---------------------LOAD TEST------------------------");
+    }
+
+    /**
+     * Issues requests until the configured duration has elapsed and waits for
+     * the ones still in flight.
+     */
+    private Mono<Void> generate(Tuple2<List<Media>, List<Long>> data, long start) {
+        int concurrency = properties.getConcurrency();
+
+        if (properties.getRate() == 0) {
+            long deadline = start + properties.getDuration().toNanos();
+            return Flux.<Endpoint>generate(sink -> {
+                if (System.nanoTime() < deadline) {
+                    sink.next(pickEndpoint());
+                } else {
+                    sink.complete();
+                }
+            })
+                    .flatMap(endpoint -> call(endpoint, data, System.nanoTime()), concurrency)
+                    .then();
+        }
+
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / properties.getRate();
+        long requests = properties.getDuration().toNanos() / periodNanos;
+        return Flux.interval(Duration.ofNanos(periodNanos))
+                .onBackpressureBuffer()
+                .take(requests)
+                // The first tick fires one period after start
+                .flatMap(tick -> call(pickEndpoint(), data, start + (tick + 1) * periodNanos), concurrency)
+                .then();
+    }
+
+    /**
+     * Sends one request and records its latency, measured from
+     * {@code intendedStart}.
+     */
+    private Mono<Void> call(Endpoint endpoint, Tuple2<List<Media>, List<Long>> data, long intendedStart) {
+        return request(endpoint, data)
+                .map(HttpStatusCode::isError)
+                .onErrorReturn(true)
+                .doOnNext(failed -> {
+                    long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart);
+                    latencies.get(endpoint).recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+                    if (failed) {
+                        errors.get(endpoint).incrementAndGet();
+                    }
+                })
+                .then();
+    }
+
+    /**
+     * Sends the request for an endpoint against a randomly chosen media or
+     * user and returns its status.
+     */
+    private Mono<HttpStatusCode> request(Endpoint endpoint, Tuple2<List<Media>, List<Long>> data) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Media media = data.getT1().get(random.nextInt(data.getT1().size()));
+        long userId = data.getT2().get(random.nextInt(data.getT2().size()));
+
+        return switch (endpoint) {
+            case MEDIA_LIST -> status(webClient.get().uri("/media").accept(MediaType.APPLICATION_NDJSON));
+            case MEDIA_BY_ID -> status(webClient.get().uri("/media/{id}", media.getId()));
+            case MEDIA_USERS -> status(webClient.get().uri("/media/{id}/users", media.getId()));
+            case USER_BY_ID -> status(webClient.get().uri("/user/{id}", userId));
+            // Writes back the media as loaded, without the rating and subscriber count the server
+            // maintains, so only the PUT is timed and no rating added since is undone
+            case MEDIA_UPDATE -> status(webClient.put().uri("/media/{id}", media.getId())
+                    .bodyValue(new MediaSummary(media.getId(), media.getTitle(), media.getReleaseDate(),
+                            media.getType())));
+        };
+    }
+
+    private static Mono<HttpStatusCode> status(WebClient.RequestHeadersSpec<?> request) {
+        return request.exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode()));
+    }
+
+    /**
+     * Picks an endpoint at random according to the configured weights.
+     */
+    private Endpoint pickEndpoint() {
+        int roll = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = 0;
+        while (roll >= cumulativeWeights[i]) {
+            i++;
+        }
+        return endpoints[i];
+    }
+
+    /**
+     * Formats one line per exercised endpoint followed by the overall totals.
+     */
+    private Flux<String> report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        long totalErrors = 0;
+
+        Flux<String> lines = Flux.empty();
+        for (Endpoint endpoint : endpoints) {
+            Histogram histogram = latencies.get(endpoint);
+            long failed = errors.get(endpoint).get();
+            total.add(histogram);
+            totalErrors += failed;
+            lines = lines.concatWithValues(format(endpoint.name(), histogram, failed, seconds));
+        }
+
+        return lines.concatWithValues(
+                format("TOTAL", total, totalErrors, seconds),
+                String.format("Duration: %.1f s, Mode: %s, Concurrency: %d",
+                        seconds,
+                        properties.getRate() == 0 ? "closed loop" : properties.getRate() + " req/s",
+                        properties.getConcurrency()));
+    }
+
+    private static String format(String name, Histogram histogram, long failed, double seconds) {
+        return String.format(
+                "%-12s Requests: %d, Errors: %d, Throughput: %.1f req/s, p50: %.2f ms, p99: %.2f ms, p99.9: %.2f ms, Max: %.2f ms",
+                name,
+                histogram.getTotalCount(),
+                failed,
+                histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+}
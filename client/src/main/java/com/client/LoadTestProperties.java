@@ -0,0 +1,56 @@
+package com.client;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Settings of the load-test mode, bound from the {@code loadtest.*}
+ * properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "loadtest")
+public class LoadTestProperties {
+
+    /**
+     * Whether to run the load test instead of the report.
+     */
+    private boolean enabled = false;
+
+    /**
+     * How long to generate load for.
+     */
+    private Duration duration = Duration.ofSeconds(30);
+
+    /**
+     * Target request rate per second; 0 sends the next request as soon as one
+     * completes (closed loop).
+     */
+    private int rate = 0;
+
+    /**
+     * Maximum number of requests in flight at any time.
+     */
+    private int concurrency = 16;
+
+    /**
+     * Relative weight of each endpoint in the request mix.
+     */
+    private Map<Endpoint, Integer> mix = new EnumMap<>(Map.of(
+            Endpoint.MEDIA_LIST, 5,
+            Endpoint.MEDIA_BY_ID, 40,
+            Endpoint.MEDIA_USERS, 20,
+            Endpoint.USER_BY_ID, 30,
+            Endpoint.MEDIA_UPDATE, 5));
+
+    /**
+     * The endpoints the load test can exercise.
+     */
+    public enum Endpoint {
+        MEDIA_LIST, MEDIA_BY_ID, MEDIA_USERS, USER_BY_ID, MEDIA_UPDATE
+    }
+}
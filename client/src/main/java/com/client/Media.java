@@ -16,6 +16,7 @@ public class Media {
     private LocalDate releaseDate;
     private double averageRating;
     private MediaType type;
+    private long subscriberCount;
 
     public enum MediaType {
         MOVIE, TV_SHOW
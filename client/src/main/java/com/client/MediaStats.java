@@ -0,0 +1,19 @@
+package com.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MediaStats {
+
+    private long count;
+    private long highlyRatedCount;
+    private Double averageRating;
+    private Double ratingStdDev;
+    private LocalDate oldestReleaseDate;
+}
@@ -0,0 +1,18 @@
+package com.client;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MediaSummary {
+
+    private long id;
+    private String title;
+    private LocalDate releaseDate;
+    private Media.MediaType type;
+}
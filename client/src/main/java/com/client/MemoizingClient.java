@@ -0,0 +1,110 @@
+package com.client;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Issues the report's GET requests at most once per URI for the duration of a
+ * run. The first caller of a URI starts the request; callers arriving while it
+ * is in flight join it, and later callers replay its result. Requests that
+ * cannot reach the server (e.g. while it is still starting) are retried a few
+ * times for every section alike; failed requests are then forgotten, so a
+ * later caller goes back to the server.
+ */
+@Slf4j
+public class MemoizingClient {
+
+    // Only failures to send the request, never error responses or broken streams,
+    // so no item is ever received twice
+    private static final Retry CONNECTION_RETRY = Retry.fixedDelay(3, Duration.ofSeconds(1))
+            .filter(WebClientRequestException.class::isInstance)
+            .doBeforeRetry(retrySignal -> log.info(
+                    "Connection with the server not successful. Attempt {}... Trying again...",
+                    retrySignal.totalRetries() + 1));
+
+    private final WebClient webClient;
+    private final ClientProperties.Encoding encoding;
+    private final Cache<String, Flux<?>> responses;
+
+    /**
+     * Constructor to initialize the memoizing client.
+     *
+     * @param webClient  - the WebClient performing the requests
+     * @param encoding   - the encoding to ask the server for
+     * @param maxEntries - the maximum number of responses kept; the least
+     *                   recently used are dropped beyond it
+     */
+    public MemoizingClient(WebClient webClient, ClientProperties.Encoding encoding, long maxEntries) {
+        this.webClient = webClient;
+        this.encoding = encoding;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    /**
+     * Retrieves a stream (NDJSON or Smile), shared with every other caller of the same
+     * URI. Items are replayed as they arrive, so the first subscribers still
+     * see the stream incrementally.
+     *
+     * @param uriTemplate  - the URI template, relative to the base URL
+     * @param type         - the type of the streamed items
+     * @param uriVariables - the values of the template variables
+     * @return Flux<T> - A Flux stream of the response items
+     */
+    public <T> Flux<T> getFlux(String uriTemplate, Class<T> type, Object... uriVariables) {
+        String uri = expand(uriTemplate, uriVariables);
+        return memoize(uri, () -> webClient.get()
+                .uri(uri)
+                .accept(encoding.getStreamType())
+                .retrieve()
+                .bodyToFlux(type));
+    }
+
+    /**
+     * Retrieves a single document, shared with every other caller of the
+     * same URI.
+     *
+     * @param uriTemplate  - the URI template, relative to the base URL
+     * @param type         - the type of the response body
+     * @param uriVariables - the values of the template variables
+     * @return Mono<T> - A Mono containing the response body
+     */
+    public <T> Mono<T> getMono(String uriTemplate, Class<T> type, Object... uriVariables) {
+        String uri = expand(uriTemplate, uriVariables);
+        return memoize(uri, () -> webClient.get()
+                .uri(uri)
+                .accept(encoding.getDocumentType())
+                .retrieve()
+                .bodyToMono(type)
+                .flux())
+                .singleOrEmpty();
+    }
+
+    // Looks the URI up on every subscription, so a resubscription after a
+    // failure starts a new request
+    @SuppressWarnings("unchecked")
+    private <T> Flux<T> memoize(String uri, Supplier<Flux<T>> request) {
+        return Flux.defer(() -> {
+            Flux<T> response = (Flux<T>) responses.get(uri,
+                    key -> request.get().retryWhen(CONNECTION_RETRY).cache());
+            return response.doOnError(e -> responses.asMap().remove(uri, response));
+        });
+    }
+
+    private static String expand(String uriTemplate, Object... uriVariables) {
+        return UriComponentsBuilder.fromUriString(uriTemplate).buildAndExpand(uriVariables).toUriString();
+    }
+}
@@ -0,0 +1,72 @@
+package com.client;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+/**
+ * The reductions applied by the report sections to the streams they receive
+ * from the server. They are kept apart from {@link App} so they can be
+ * benchmarked without a running server.
+ */
+public final class Reductions {
+
+    private Reductions() {
+    }
+
+    /**
+     * Reduction for REQ 8 - Averages the values with a [count, sum] state.
+     * 
+     * @param values - The values to average
+     * @return Mono<Double> - A Mono containing the average, or 0 when empty
+     */
+    public static Mono<Double> average(Flux<? extends Number> values) {
+        return values
+                .reduce(new double[] { 0, 0 }, (acc, value) -> {
+                    acc[0] += 1;
+                    acc[1] += value.doubleValue();
+                    return acc;
+                })
+                .map(result -> result[0] == 0 ? 0 : result[1] / result[0]);
+    }
+
+    /**
+     * Reduction for REQ 9 - Joins the names with ", " and counts them, using an
+     * Object[] state of [joinedNames, count].
+     * 
+     * @param names - The names to join
+     * @return Mono<Tuple2<String, Integer>> - A Mono containing the joined names
+     *         and their count
+     */
+    public static Mono<Tuple2<String, Integer>> joinAndCount(Flux<String> names) {
+        return names
+                .reduce(
+                        new Object[] { "", 0 }, // Initial state: [userString, count]
+                        (state, name) -> {
+                            state[0] = state[0] + name + ", ";
+                            state[1] = (int) state[1] + 1;
+                            return state;
+                        })
+                .map(state -> {
+                    String userString = (String) state[0];
+
+                    // Remove the trailing comma and space, if present
+                    if (userString.endsWith(", ")) {
+                        userString = userString.substring(0, userString.length() - 2);
+                    }
+                    return Tuples.of(userString, (int) state[1]);
+                });
+    }
+
+    /**
+     * Reduction for REQ 10 - Joins the titles with ", ".
+     * 
+     * @param titles - The titles to join
+     * @return Mono<String> - A Mono containing the joined titles, or "" when
+     *         empty
+     */
+    public static Mono<String> joinTitles(Flux<String> titles) {
+        return titles.reduce("", (result, title) -> result.isEmpty() ? title : result + ", " + title);
+    }
+}
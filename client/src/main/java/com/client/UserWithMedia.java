@@ -1,5 +1,7 @@
 package com.client;
 
+import java.util.List;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -7,7 +9,11 @@ import lombok.NoArgsConstructor;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-public class UserInfo {
+public class UserWithMedia {
+
+    private long id;
     private String name;
     private Integer age;
+    private User.Gender gender;
+    private List<MediaSummary> media;
 }
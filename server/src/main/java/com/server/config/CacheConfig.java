@@ -0,0 +1,38 @@
+package com.server.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.server.model.Media;
+import com.server.model.User;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public AsyncCache<Long, Media> mediaCache(
+            @Value("${cache.media.maximum-size:10000}") long maximumSize,
+            @Value("${cache.media.expire-after-write:10m}") Duration expireAfterWrite) {
+        return buildCache(maximumSize, expireAfterWrite);
+    }
+
+    @Bean
+    public AsyncCache<Long, User> userCache(
+            @Value("${cache.user.maximum-size:10000}") long maximumSize,
+            @Value("${cache.user.expire-after-write:10m}") Duration expireAfterWrite) {
+        return buildCache(maximumSize, expireAfterWrite);
+    }
+
+    private static <V> AsyncCache<Long, V> buildCache(long maximumSize, Duration expireAfterWrite) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+    }
+}
@@ -0,0 +1,39 @@
+package com.server.config;
+
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Binary (Smile) encoding of the API, negotiated through the Accept and
+ * Content-Type headers next to JSON. Smile is Jackson's binary JSON, so every
+ * model serializes exactly as it does in JSON, only without the text
+ * formatting of numbers, dates and field names.
+ */
+@Configuration
+public class CodecConfig {
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    // Counterpart of NDJSON: one Smile value after the other
+    public static final String SMILE_STREAM_VALUE = "application/stream+x-jackson-smile";
+
+    // Smile codecs built from the same mapper settings as the JSON ones
+    @Bean
+    public CodecCustomizer smileCodecCustomizer(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+        // Without explicit MIME types the codecs would claim the JSON ones
+        MimeType[] mimeTypes = { MimeType.valueOf(SMILE_VALUE), MimeType.valueOf(SMILE_STREAM_VALUE) };
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, mimeTypes));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, mimeTypes));
+        };
+    }
+}
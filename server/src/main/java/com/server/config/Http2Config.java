@@ -0,0 +1,43 @@
+package com.server.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.util.unit.DataSize;
+
+import reactor.netty.http.server.HttpRequestDecoderSpec;
+
+/**
+ * Clients speaking h2c open each connection with an HTTP/1.1 request asking to
+ * upgrade, and Netty holds that request's body in memory until the switch to
+ * HTTP/2. By default it refuses any body at all, so a PUT or POST that happens
+ * to open a connection fails with 413 while the same request on an upgraded
+ * connection succeeds.
+ */
+@Configuration
+public class Http2Config {
+
+    @Value("${server.http2.h2c-max-content-length:1MB}")
+    private DataSize h2cMaxContentLength;
+
+    // Last, and keeping the decoder settings already made, as every change of the
+    // decoder starts over from Netty's defaults
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public WebServerFactoryCustomizer<NettyReactiveWebServerFactory> h2cUpgradeCustomizer() {
+        return factory -> factory.addServerCustomizers(httpServer -> {
+            HttpRequestDecoderSpec current = httpServer.configuration().decoder();
+            return httpServer.httpRequestDecoder(decoder -> decoder
+                    .maxInitialLineLength(current.maxInitialLineLength())
+                    .maxHeaderSize(current.maxHeaderSize())
+                    .validateHeaders(current.validateHeaders())
+                    .initialBufferSize(current.initialBufferSize())
+                    .allowDuplicateContentLengths(current.allowDuplicateContentLengths())
+                    .h2cMaxContentLength((int) h2cMaxContentLength.toBytes()));
+        });
+    }
+}
@@ -0,0 +1,69 @@
+package com.server.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Metrics that Spring Boot does not record on its own. Request timers, pool
+ * gauges and repository timers come from the actuator auto-configuration and
+ * are tuned in application.properties.
+ */
+@Configuration
+public class MetricsConfig {
+
+    private static final String SCHEDULER_METRICS_KEY = "metrics";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicLong executorIds = new AtomicLong();
+
+    // Time connection acquisition on whichever ConnectionFactory the app ends up with
+    @Bean
+    public static BeanPostProcessor timedConnectionFactoryPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof ConnectionFactory connectionFactory
+                        && !(bean instanceof TimedConnectionFactory)) {
+                    return new TimedConnectionFactory(connectionFactory, meterRegistry.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Executor metrics (pool size, queued, active and completed tasks, task
+    // duration) for every Reactor scheduler worker created from now on. Workers are
+    // told apart by an executor id, and their meters are removed when they shut
+    // down, as bounded-elastic workers come and go.
+    // Schedulers adapting someone else's executor (Netty event loops) are skipped
+    @PostConstruct
+    public void enableSchedulerMetrics() {
+        Schedulers.addExecutorServiceDecorator(SCHEDULER_METRICS_KEY, (scheduler, executor) -> {
+            String name = scheduler.toString();
+            if (name.startsWith("fromExecutor")) {
+                return executor;
+            }
+            return new MeteredSchedulerExecutor(executor, meterRegistry,
+                    Tags.of("scheduler", name, "executor", Long.toString(executorIds.incrementAndGet())));
+        });
+    }
+
+    @PreDestroy
+    public void disableSchedulerMetrics() {
+        Schedulers.removeExecutorServiceDecorator(SCHEDULER_METRICS_KEY);
+    }
+}
@@ -0,0 +1,29 @@
+package com.server.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Settings of the per-request summary log, bound from {@code request-log.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "request-log")
+public class RequestLogProperties {
+
+    // Whether to write a summary line per request
+    private boolean enabled = true;
+
+    // Fraction of successful requests logged on routes without their own rate
+    private double sampleRate = 1.0;
+
+    // Per-route fractions, keyed by the route pattern, e.g. /media/{id}
+    private Map<String, Double> routes = new HashMap<>();
+
+    // Failed requests and requests slower than this are always logged
+    private Duration slowThreshold = Duration.ofSeconds(1);
+}
@@ -0,0 +1,51 @@
+package com.server.config;
+
+import org.reactivestreams.Publisher;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import reactor.core.publisher.Mono;
+
+/**
+ * Records how long each connection takes to obtain from the wrapped factory.
+ * In front of the pool this is the acquire time, including any wait for a
+ * free connection.
+ *
+ * Implements {@link Wrapped} so the pool behind it is still found by the pool
+ * gauges.
+ */
+public class TimedConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory> {
+
+    private final ConnectionFactory delegate;
+    private final Timer acquireTimer;
+
+    public TimedConnectionFactory(ConnectionFactory delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.acquireTimer = Timer.builder("r2dbc.pool.acquire")
+                .description("Time taken to obtain a database connection")
+                .register(registry);
+    }
+
+    @Override
+    public Publisher<? extends Connection> create() {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start();
+            return Mono.<Connection>from(delegate.create())
+                    .doOnSuccess(connection -> sample.stop(acquireTimer));
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return delegate.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return delegate;
+    }
+}
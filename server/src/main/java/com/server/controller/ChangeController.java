@@ -0,0 +1,53 @@
+package com.server.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.server.model.Change;
+import com.server.service.ChangeFeed;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/changes")
+@Slf4j
+public class ChangeController {
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    // Stream every change to media, users and relationships after a sequence number as
+    // Server-Sent Events; a reconnecting EventSource resumes from its Last-Event-ID
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Change>> streamChanges(@RequestParam(name = "after", defaultValue = "0") long after,
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        long from = lastEventId != null ? lastEventId : after;
+        return changeFeed.isKept(from)
+                .flatMapMany(kept -> kept ? changeFeed.getChanges(from)
+                        : Flux.error(new ResponseStatusException(HttpStatus.GONE,
+                                "changes after " + from + " are no longer kept; resynchronize from /changes/latest")))
+                .map(change -> ServerSentEvent.builder(change)
+                        .id(Long.toString(change.getSeq()))
+                        .event(change.getEntity().name())
+                        .build())
+                .doOnError(e -> log.error("Error streaming changes after {}: {}", from, e.getMessage()));
+    }
+
+    // Get the sequence number of the latest change: read it before copying /media and /user,
+    // then stream the changes after it
+    @GetMapping("/latest")
+    public Mono<Long> getLatestSeq() {
+        return changeFeed.getLatestSeq()
+                .doOnError(e -> log.error("Error fetching the latest change: {}", e.getMessage()));
+    }
+}
@@ -0,0 +1,94 @@
+package com.server.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.server.service.CatalogVersion;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Conditional GETs for the catalog endpoints. Successful responses carry an
+ * ETag made of the catalog version, and a request whose If-None-Match still
+ * names the current version is answered 304 before reaching a controller, so
+ * an unchanged poll never touches the repositories.
+ */
+@Component
+public class ConditionalGetFilter implements WebFilter {
+
+    private static final List<PathPattern> CATALOG_PATHS = List.of(
+            PathPatternParser.defaultInstance.parse("/media/**"),
+            PathPatternParser.defaultInstance.parse("/user/**"));
+
+    // Counters rather than catalog data, and analytics and recommendations that follow the catalog
+    // through the change feed, so may lag its version
+    private static final List<PathPattern> EXCLUDED_PATHS = List.of(
+            PathPatternParser.defaultInstance.parse("/media/cache/stats"),
+            PathPatternParser.defaultInstance.parse("/media/analytics/**"),
+            PathPatternParser.defaultInstance.parse("/media/{id}/related"),
+            PathPatternParser.defaultInstance.parse("/user/cache/stats"));
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!HttpMethod.GET.equals(request.getMethod()) || !isCatalogPath(request)) {
+            return chain.filter(exchange);
+        }
+
+        // Read before the handler runs, so the response holds at least this version's data
+        String etag = etag(request);
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().setVary(List.of(HttpHeaders.ACCEPT));
+        if (matches(request.getHeaders().getIfNoneMatch(), etag)) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            response.getHeaders().setETag(etag);
+            return response.setComplete();
+        }
+
+        // Errors are not tagged, so a 304 always stands for a successful response
+        response.beforeCommit(() -> {
+            if (response.getStatusCode() == null || response.getStatusCode().is2xxSuccessful()) {
+                response.getHeaders().setETag(etag);
+            }
+            return Mono.empty();
+        });
+        return chain.filter(exchange);
+    }
+
+    private static boolean isCatalogPath(ServerHttpRequest request) {
+        PathContainer path = request.getPath().pathWithinApplication();
+        return CATALOG_PATHS.stream().anyMatch(pattern -> pattern.matches(path))
+                && EXCLUDED_PATHS.stream().noneMatch(pattern -> pattern.matches(path));
+    }
+
+    // Responses to the same URI differ by encoding (JSON, NDJSON, Smile), so the
+    // requested types are part of the tag
+    private String etag(ServerHttpRequest request) {
+        String accept = String.join(",", request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT));
+        return String.format("\"%x-%d-%x\"", catalogVersion.getStartedAt(), catalogVersion.current(),
+                accept.hashCode());
+    }
+
+    // If-None-Match uses the weak comparison
+    private static boolean matches(List<String> ifNoneMatch, String etag) {
+        return ifNoneMatch.stream()
+                .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                .anyMatch(etag::equals);
+    }
+}
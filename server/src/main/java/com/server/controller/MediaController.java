@@ -1,6 +1,14 @@
 package com.server.controller;
 
+import java.time.LocalDate;
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -8,11 +16,25 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
+import com.server.config.CodecConfig;
+import com.server.model.BatchInsertResult;
+import com.server.model.CacheStatistics;
 import com.server.model.Media;
+import com.server.model.MediaFilter;
+import com.server.model.MediaStats;
+import com.server.model.MediaUsers;
+import com.server.model.Rating;
+import com.server.model.RatingDistribution;
+import com.server.model.RelatedMedia;
 import com.server.model.Relationship;
+import com.server.model.User;
 import com.server.service.MediaService;
+import com.server.service.RatingAnalytics;
 
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
@@ -26,80 +48,212 @@ public class MediaController {
     @Autowired
     private MediaService mediaService;
 
-    // Get all media
-    @GetMapping
-    public Flux<Media> getAllMedia() {
-        log.info("Received request to fetch all media.");
-        return mediaService.getAllMedia()
-                .doOnNext(media -> log.debug("Fetched media item: {}", media))
-                .doOnError(e -> log.error("Error fetching all media: {}", e.getMessage()))
-                .doOnComplete(() -> log.info("Completed fetching all media."));
+    @Autowired
+    private RatingAnalytics ratingAnalytics;
+
+    // Get all media, or those matching the given filters, sorted when asked (e.g.
+    // ?releasedFrom=1980-01-01&releasedTo=1989-12-31&sort=averageRating,asc) and one page at a
+    // time when a limit is given; streamed as NDJSON or Smile when requested
+    @GetMapping(produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+            CodecConfig.SMILE_VALUE, CodecConfig.SMILE_STREAM_VALUE })
+    public Flux<Media> getAllMedia(@RequestParam(name = "after", defaultValue = "0") long after,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "type", required = false) Media.MediaType type,
+            @RequestParam(name = "releasedFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedFrom,
+            @RequestParam(name = "releasedTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedTo,
+            @RequestParam(name = "minRating", required = false) Double minRating,
+            @RequestParam(name = "sort", required = false) String sort) {
+        if (limit != null && limit < 0) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must not be negative"));
+        }
+        MediaFilter filter = new MediaFilter(type, releasedFrom, releasedTo, minRating);
+        return Mono.fromCallable(() -> sort == null ? Sort.unsorted() : parseSort(sort))
+                // after is an ID cursor, so it only pages through results in ascending ID order
+                .doOnNext(order -> {
+                    if (after > 0 && !order.stream().allMatch(o -> o.getProperty().equals("id") && o.isAscending())) {
+                        throw new IllegalArgumentException("after can only be combined with sort=id,asc");
+                    }
+                })
+                .flatMapMany(order -> mediaService.getMedia(filter, after, order, limit))
+                .onErrorMap(IllegalArgumentException.class,
+                        e -> new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage()))
+                .transform(RequestLogFilter::countRows)
+                .doOnError(e -> log.error("Error fetching media: {}", e.getMessage()));
+    }
+
+    // Get aggregate statistics over the (optionally filtered) media catalog
+    @GetMapping("/stats")
+    public Mono<MediaStats> getMediaStats(
+            @RequestParam(name = "type", required = false) Media.MediaType type,
+            @RequestParam(name = "releasedFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedFrom,
+            @RequestParam(name = "releasedTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedTo,
+            @RequestParam(name = "ratedAbove", defaultValue = "8") double ratedAbove) {
+        return mediaService.getMediaStats(type, releasedFrom, releasedTo, ratedAbove)
+                .doOnError(e -> log.error("Error computing media statistics: {}", e.getMessage()));
+    }
+
+    // Get the hit/miss/eviction counters of the media cache
+    @GetMapping("/cache/stats")
+    public Mono<CacheStatistics> getCacheStats() {
+        return Mono.fromSupplier(mediaService::getCacheStats);
+    }
+
+    // Get the rating percentiles and histogram of the (optionally filtered) catalog, one per
+    // type and/or release decade when grouped by them (e.g. ?groupBy=type,decade&bucketWidth=0.5)
+    @GetMapping("/analytics/ratings")
+    public Flux<RatingDistribution> getRatingDistributions(
+            @RequestParam(name = "type", required = false) Media.MediaType type,
+            @RequestParam(name = "decade", required = false) Integer decade,
+            @RequestParam(name = "groupBy", required = false) List<String> groupBy,
+            @RequestParam(name = "bucketWidth", defaultValue = "1") double bucketWidth) {
+        List<String> groups = groupBy == null ? List.of() : groupBy;
+        for (String group : groups) {
+            if (!group.equals("type") && !group.equals("decade")) {
+                return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "cannot group by " + group));
+            }
+        }
+        return Flux.defer(() -> Flux.fromIterable(ratingAnalytics.getDistributions(type, decade,
+                groups.contains("type"), groups.contains("decade"), bucketWidth)))
+                .onErrorMap(IllegalArgumentException.class,
+                        e -> new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage()))
+                .transform(RequestLogFilter::countRows)
+                .doOnError(e -> log.error("Error computing rating distributions: {}", e.getMessage()));
     }
 
     // Get a specific media by ID
     @GetMapping("/{id}")
     public Mono<Media> getMediaById(@PathVariable("id") long id) {
-        log.info("Received request to fetch media with ID: {}", id);
         return mediaService.getMediaById(id)
-                .doOnNext(media -> log.info("Found media: {}", media))
                 .doOnError(e -> log.error("Error fetching media with ID {}: {}", id, e.getMessage()));
     }
 
     @GetMapping("/{id}/users")
     public Flux<Long> getUsersByMediaId(@PathVariable("id") Long id) {
-        log.info("Received request to fetch users subscribed to media with ID: {}", id);
         return mediaService.getUsersByMediaId(id)
-                .doOnNext(userId -> log.debug("Fetched user with id: {}", userId))
+                .transform(RequestLogFilter::countRows)
                 .doOnError(
-                        e -> log.error("Error fetching users subscribed to media with ID {}: {}", id, e.getMessage()))
-                .doOnComplete(() -> log.info("Completed fetching users subscribed to media with ID: {}", id));
+                        e -> log.error("Error fetching users subscribed to media with ID {}: {}", id, e.getMessage()));
+    }
+
+    // Get the subscribers of a media item as users, sorted and limited by the database,
+    // e.g. ?expand=users&sort=age,desc&limit=10
+    @GetMapping(path = "/{id}/users", params = "expand=users", produces = { MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE, CodecConfig.SMILE_VALUE, CodecConfig.SMILE_STREAM_VALUE })
+    public Flux<User> getSubscribers(@PathVariable("id") long id,
+            @RequestParam(name = "sort", defaultValue = "id") String sort,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+        if (limit != null && limit < 0) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must not be negative"));
+        }
+        return Mono.fromCallable(() -> parseSort(sort))
+                .flatMapMany(order -> mediaService.getSubscribers(id, order, limit))
+                .onErrorMap(IllegalArgumentException.class,
+                        e -> new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage()))
+                .transform(RequestLogFilter::countRows)
+                .doOnError(e -> log.error("Error fetching subscribers of media with ID {}: {}", id, e.getMessage()));
+    }
+
+    // Get the subscribers of several media items in a single round trip
+    @PostMapping("/users/lookup")
+    public Flux<MediaUsers> getUsersByMediaIds(@RequestBody List<Long> mediaIds) {
+        return mediaService.getUsersByMediaIds(mediaIds)
+                .transform(RequestLogFilter::countRows)
+                .doOnError(e -> log.error("Error fetching users for media batch: {}", e.getMessage()));
+    }
+
+    // Get the number of users subscribed to a media item from its maintained counter
+    @GetMapping("/{id}/users/count")
+    public Mono<Long> getUserCountByMediaId(@PathVariable("id") long id) {
+        return mediaService.getUserCountByMediaId(id)
+                .doOnError(e -> log.error("Error counting users subscribed to media with ID {}: {}", id,
+                        e.getMessage()));
+    }
+
+    // Get the media most often watched by the subscribers of a media item, with the number
+    // of subscribers they share, e.g. /media/1/related?limit=5
+    @GetMapping("/{id}/related")
+    public Flux<RelatedMedia> getRelatedMedia(@PathVariable("id") long id,
+            @RequestParam(name = "limit", defaultValue = "10") int limit) {
+        if (limit < 0) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must not be negative"));
+        }
+        return mediaService.getRelatedMedia(id, limit)
+                .transform(RequestLogFilter::countRows)
+                .doOnError(e -> log.error("Error fetching media related to media with ID {}: {}", id,
+                        e.getMessage()));
     }
 
     // Create new media
     @PostMapping
     private Mono<Media> createMedia(@RequestBody Media media) {
-        log.info("Received request to create new media: {}", media);
         return mediaService.createMedia(media)
-                .doOnSuccess(createdMedia -> log.info("Successfully created media: {}", createdMedia))
                 .doOnError(e -> log.error("Error creating media: {}", e.getMessage()));
     }
 
+    // Create many media from a JSON array or NDJSON stream
+    @PostMapping("/batch")
+    public Flux<BatchInsertResult> createMediaBatch(@RequestBody Flux<Media> media) {
+        return mediaService.createMediaBatch(media)
+                .transform(RequestLogFilter::countRows)
+                .doOnError(e -> log.error("Error creating media batch: {}", e.getMessage()));
+    }
+
     @PostMapping("/users")
     public Mono<Relationship> createRelationship(@RequestBody Relationship relationship) {
-        log.info("Received request to create new relationship: {}", relationship);
         return mediaService.createRelationship(relationship)
-                .doOnSuccess(
-                        createdRelationship -> log.info("Successfully created relationship: {}", createdRelationship))
                 .doOnError(e -> log.error("Error creating relationship: {}", e.getMessage()));
     }
 
+    // Create many relationships from a JSON array or NDJSON stream
+    @PostMapping("/users/batch")
+    public Flux<BatchInsertResult> createRelationshipBatch(@RequestBody Flux<Relationship> relationships) {
+        return mediaService.createRelationshipBatch(relationships)
+                .transform(RequestLogFilter::countRows)
+                .doOnError(e -> log.error("Error creating relationship batch: {}", e.getMessage()));
+    }
+
+    // Rate a media item from 0 to 10; ratings are added to its average rating by a periodic
+    // batched update, so they are accepted rather than applied when the response is sent
+    @PostMapping("/{id}/ratings")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public Mono<Void> rateMedia(@PathVariable("id") long id, @RequestBody Rating rating) {
+        if (!(rating.getRating() >= 0 && rating.getRating() <= 10)) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "rating must be between 0 and 10"));
+        }
+        return mediaService.rateMedia(id, rating.getRating())
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "no media with ID " + id)))
+                .onErrorMap(TransientDataAccessResourceException.class,
+                        e -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage()))
+                .then()
+                .doOnError(e -> log.error("Error rating media with ID {}: {}", id, e.getMessage()));
+    }
+
     // Update existing media by ID
     @PutMapping("/{id}")
     private Mono<Media> updateMedia(@PathVariable("id") long id, @RequestBody Media updatedMedia) {
-        log.info("Received request to update media with ID {}: {}", id, updatedMedia);
         return mediaService.updateMedia(updatedMedia)
-                .doOnSuccess(updated -> log.info("Successfully updated media with ID {}: {}", id, updated))
                 .doOnError(e -> log.error("Error updating media with ID {}: {}", id, e.getMessage()));
     }
 
     // Delete media by ID
     @DeleteMapping("/{id}")
     private Mono<Media> deleteMedia(@PathVariable("id") long id) {
-        log.info("Received request to delete media with ID: {}", id);
         return mediaService.deleteMedia(id)
-                .doOnSuccess(deletedMedia -> log.info("Successfully deleted media: {}", deletedMedia))
                 .doOnError(e -> log.error("Error deleting media with ID {}: {}", id, e.getMessage()));
     }
 
     @DeleteMapping("/{mediaId}/{userId}")
     public Mono<Relationship> deleteRelationship(@PathVariable("mediaId") Long mediaId,
             @PathVariable("userId") Long userId) {
-        log.info("Received request to delete relationship: {}", new Relationship(mediaId, userId));
         return mediaService.deleteRelationship(mediaId, userId)
-                .doOnSuccess(
-                        deletedRelationship -> log.info("Successfully deleted relationship: {}", deletedRelationship))
                 .doOnError(e -> log.error("Error deleting relationship {}: {}", new Relationship(mediaId, userId),
                         e.getMessage()));
     }
 
+    // Parses "property" or "property,asc|desc"
+    private static Sort parseSort(String sort) {
+        String[] parts = sort.split(",", 2);
+        Sort.Direction direction = parts.length > 1 ? Sort.Direction.fromString(parts[1].trim()) : Sort.Direction.ASC;
+        return Sort.by(direction, parts[0].trim());
+    }
 }
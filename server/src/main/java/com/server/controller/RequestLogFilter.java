@@ -0,0 +1,113 @@
+package com.server.controller;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+
+import com.server.config.RequestLogProperties;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Writes one summary line per request (route, status, latency and, for
+ * streamed results, the number of rows) in place of per-item logging, sampled
+ * per route. Failed and slow requests are always logged. Runs ahead of the
+ * other filters so requests they answer themselves (304s) are summarized too.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@EnableConfigurationProperties(RequestLogProperties.class)
+@Slf4j
+public class RequestLogFilter implements WebFilter {
+
+    private static final String ROWS_KEY = RequestLogFilter.class.getName() + ".rows";
+    private static final long NOT_COUNTED = -1;
+
+    @Autowired
+    private RequestLogProperties properties;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+
+        long start = System.nanoTime();
+        AtomicLong rows = new AtomicLong(NOT_COUNTED);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        return chain.filter(exchange)
+                .doOnError(failure::set)
+                .doFinally(signal -> summarize(exchange, signal, failure.get(), System.nanoTime() - start, rows.get()))
+                .contextWrite(context -> context.put(ROWS_KEY, rows));
+    }
+
+    /**
+     * Counts the items of a result stream towards the row count of the request
+     * summary.
+     */
+    public static <T> Flux<T> countRows(Flux<T> results) {
+        return Flux.deferContextual(context -> context.<AtomicLong>getOrEmpty(ROWS_KEY)
+                .map(rows -> results
+                        .doOnSubscribe(subscription -> rows.compareAndSet(NOT_COUNTED, 0))
+                        .doOnNext(item -> rows.incrementAndGet()))
+                .orElse(results));
+    }
+
+    private void summarize(ServerWebExchange exchange, SignalType signal, Throwable failure, long elapsedNanos,
+            long rows) {
+        String route = route(exchange);
+        int status = status(exchange, failure);
+        boolean cancelled = signal == SignalType.CANCEL;
+        boolean alwaysLog = failure != null || cancelled || status >= 400
+                || elapsedNanos >= properties.getSlowThreshold().toNanos();
+
+        double sampleRate = properties.getRoutes().getOrDefault(route, properties.getSampleRate());
+        if (!alwaysLog && sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+
+        log.info("method={} route={} status={} latency_ms={} rows={}{}",
+                exchange.getRequest().getMethod(),
+                route,
+                cancelled ? "cancelled" : status,
+                TimeUnit.NANOSECONDS.toMicros(elapsedNanos) / 1000.0,
+                rows == NOT_COUNTED ? "-" : rows,
+                alwaysLog || sampleRate >= 1.0 ? "" : " sample_rate=" + sampleRate);
+    }
+
+    // The matched route pattern keeps the log groupable; unmatched requests fall back to the path
+    private static String route(ServerWebExchange exchange) {
+        PathPattern pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.getPatternString() : exchange.getRequest().getPath().value();
+    }
+
+    // Errors are rendered after the filter chain, so their status is taken from the exception
+    private static int status(ServerWebExchange exchange, Throwable failure) {
+        if (failure instanceof ResponseStatusException responseStatus) {
+            return responseStatus.getStatusCode().value();
+        }
+        if (failure != null) {
+            return 500;
+        }
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return status != null ? status.value() : 200;
+    }
+}
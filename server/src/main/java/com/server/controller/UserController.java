@@ -1,6 +1,10 @@
 package com.server.controller;
 
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -8,9 +12,17 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
+import com.server.config.CodecConfig;
+import com.server.model.BatchInsertResult;
+import com.server.model.CacheStatistics;
+import com.server.model.MediaSummary;
 import com.server.model.User;
+import com.server.model.UserMedia;
+import com.server.model.UserWithMedia;
 import com.server.service.UserService;
 
 import lombok.extern.slf4j.Slf4j;
@@ -25,59 +37,96 @@ public class UserController {
     @Autowired
     private UserService userService;
 
-    // Get all users
-    @GetMapping
-    public Flux<User> getAllUsers() {
-        log.info("Received request to fetch all users.");
-        return userService.getAllUsers()
-                .doOnNext(user -> log.debug("Fetched user: {}", user))
-                .doOnError(error -> log.error("Error fetching all users: {}", error))
-                .doOnComplete(() -> log.info("Completed fetching all users."));
+    // Get all users, one page at a time when a limit is given; streamed as NDJSON or Smile when requested
+    @GetMapping(produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+            CodecConfig.SMILE_VALUE, CodecConfig.SMILE_STREAM_VALUE })
+    public Flux<User> getAllUsers(@RequestParam(name = "after", defaultValue = "0") long after,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+        if (limit != null && limit < 0) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must not be negative"));
+        }
+        return userService.getAllUsers(after, limit)
+                .transform(RequestLogFilter::countRows)
+                .doOnError(error -> log.error("Error fetching all users: {}", error));
+    }
+
+    // Get all users with their media embedded, read with a single join
+    @GetMapping(params = "expand=media", produces = { MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE, CodecConfig.SMILE_VALUE, CodecConfig.SMILE_STREAM_VALUE })
+    public Flux<UserWithMedia> getAllUsersWithMedia(@RequestParam(name = "after", defaultValue = "0") long after,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+        if (limit != null && limit < 0) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must not be negative"));
+        }
+        return userService.getAllUsersWithMedia(after, limit)
+                .transform(RequestLogFilter::countRows)
+                .doOnError(e -> log.error("Error fetching all users with their media: {}", e.getMessage()));
+    }
+
+    // Get the hit/miss/eviction counters of the user cache
+    @GetMapping("/cache/stats")
+    public Mono<CacheStatistics> getCacheStats() {
+        return Mono.fromSupplier(userService::getCacheStats);
     }
 
     // Get a specific user by ID
     @GetMapping("/{id}")
     public Mono<User> getUserById(@PathVariable("id") long id) {
-        log.info("Received request to fetch user with ID: {}", id);
         return userService.getUserById(id)
-                .doOnNext(user -> log.info("Found user: {}", user))
                 .doOnError(e -> log.error("Error fetching user with ID {}: {}", id, e.getMessage()));
     }
 
     @GetMapping("/{id}/media")
     public Flux<Long> getUsersByMediaId(@PathVariable("id") Long id) {
-        log.info("Received request to fetch media subscribed by user with ID: {}", id);
         return userService.getMediaByUserId(id)
-                .doOnNext(mediaId -> log.debug("Fetched media with id: {}", mediaId))
+                .transform(RequestLogFilter::countRows)
                 .doOnError(
-                        e -> log.error("Error fetching media subscribed by user with ID {}: {}", id, e.getMessage()))
-                .doOnComplete(() -> log.info("Completed fetching media subscribed by user with ID: {}", id));
+                        e -> log.error("Error fetching media subscribed by user with ID {}: {}", id, e.getMessage()));
+    }
+
+    // Get the media subscribed by a user as summaries instead of IDs
+    @GetMapping(path = "/{id}/media", params = "expand=media")
+    public Flux<MediaSummary> getMediaSummariesByUserId(@PathVariable("id") long id) {
+        return userService.getMediaSummariesByUserId(id)
+                .transform(RequestLogFilter::countRows)
+                .doOnError(e -> log.error("Error fetching media summaries for user with ID {}: {}", id,
+                        e.getMessage()));
+    }
+
+    // Get the media of several users in a single round trip
+    @PostMapping("/media/lookup")
+    public Flux<UserMedia> getMediaByUserIds(@RequestBody List<Long> userIds) {
+        return userService.getMediaByUserIds(userIds)
+                .transform(RequestLogFilter::countRows)
+                .doOnError(e -> log.error("Error fetching media for user batch: {}", e.getMessage()));
     }
 
     // Create new user
     @PostMapping
     public Mono<User> createUser(@RequestBody User user) {
-        log.info("Received request to create new user: {}", user);
         return userService.createUser(user)
-                .doOnSuccess(createdUser -> log.info("Successfully created user: {}", createdUser))
                 .doOnError(e -> log.error("Error creating user: {}", e.getMessage()));
     }
 
+    // Create many users from a JSON array or NDJSON stream
+    @PostMapping("/batch")
+    public Flux<BatchInsertResult> createUserBatch(@RequestBody Flux<User> users) {
+        return userService.createUserBatch(users)
+                .transform(RequestLogFilter::countRows)
+                .doOnError(e -> log.error("Error creating user batch: {}", e.getMessage()));
+    }
+
     // Update existing user by ID
     @PutMapping("/{id}")
     public Mono<User> updateUser(@PathVariable("id") long id, @RequestBody User updatedUser) {
-        log.info("Received request to update media with ID {}: {}", id, updatedUser);
         return userService.updateUser(updatedUser)
-                .doOnSuccess(updated -> log.info("Successfully updated user with ID {}: {}", id, updated))
                 .doOnError(e -> log.error("Error updating user with ID {}: {}", id, e.getMessage()));
     }
 
     // Delete user by ID
     @DeleteMapping("/{id}")
     public Mono<User> deleteUser(@PathVariable("id") long id) {
-        log.info("Received request to delete user with ID: {}", id);
         return userService.deleteUser(id)
-                .doOnSuccess(deletedUser -> log.info("Successfully deleted user: {}", deletedUser))
                 .doOnError(e -> log.error("Error deleting user with ID {}: {}", id, e.getMessage()));
     }
 }
@@ -0,0 +1,19 @@
+package com.server.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchInsertResult {
+
+    private long index;
+    private Long id;
+    private Status status;
+
+    public enum Status {
+        CREATED, CONFLICT
+    }
+}
@@ -0,0 +1,37 @@
+package com.server.model;
+
+import java.time.OffsetDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("change_log")
+public class Change {
+
+    @Id
+    private long seq;
+    private Entity entity;
+    private Operation operation;
+
+    // The row as JSON, shaped like the entity's model; the old row for deletes
+    @JsonRawValue
+    private String data;
+    private OffsetDateTime changedAt;
+
+    public enum Entity {
+        MEDIA, USER, RELATIONSHIP
+    }
+
+    public enum Operation {
+        INSERT, UPDATE, DELETE
+    }
+}
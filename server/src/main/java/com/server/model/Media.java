@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDate;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.ReadOnlyProperty;
 
 @Data
 @AllArgsConstructor
@@ -20,6 +21,10 @@ public class Media {
     private double averageRating;
     private MediaType type;
 
+    // Maintained by the relationship writes, never by media inserts or updates
+    @ReadOnlyProperty
+    private long subscriberCount;
+
     public enum MediaType {
         MOVIE, TV_SHOW
     }
@@ -0,0 +1,19 @@
+package com.server.model;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Conditions on /media; null fields match everything and bounds are inclusive
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MediaFilter {
+
+    private Media.MediaType type;
+    private LocalDate releasedFrom;
+    private LocalDate releasedTo;
+    private Double minRating;
+}
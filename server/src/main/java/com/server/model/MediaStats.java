@@ -0,0 +1,19 @@
+package com.server.model;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MediaStats {
+
+    private long count;
+    private long highlyRatedCount;
+    private Double averageRating;
+    private Double ratingStdDev;
+    private LocalDate oldestReleaseDate;
+}
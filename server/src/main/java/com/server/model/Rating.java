@@ -0,0 +1,14 @@
+package com.server.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A rating submitted for a media item, from 0 to 10 in steps of 0.01
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Rating {
+
+    private double rating;
+}
@@ -0,0 +1,16 @@
+package com.server.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Media rated from (inclusive) to (exclusive, inclusive for the last bucket)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RatingBucket {
+
+    private double from;
+    private double to;
+    private long count;
+}
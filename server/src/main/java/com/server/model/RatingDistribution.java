@@ -0,0 +1,23 @@
+package com.server.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Ratings of one slice of the catalog; type and decade are null when not sliced by them,
+// and the percentiles are null for an empty slice
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RatingDistribution {
+
+    private Media.MediaType type;
+    private Integer decade;
+    private long count;
+    private Double p50;
+    private Double p90;
+    private Double p99;
+    private List<RatingBucket> histogram;
+}
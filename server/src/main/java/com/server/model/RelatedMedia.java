@@ -0,0 +1,15 @@
+package com.server.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A media item and how many subscribers it shares with the one it is related to
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RelatedMedia {
+
+    private Media media;
+    private int sharedSubscribers;
+}
@@ -0,0 +1,16 @@
+package com.server.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserMedia {
+
+    private long userId;
+    private List<Long> mediaIds;
+}
@@ -0,0 +1,23 @@
+package com.server.model;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One row of the users-relationships-media join; the media columns are null for a user without media
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserMediaRow {
+
+    private long userId;
+    private String name;
+    private Integer age;
+    private User.Gender gender;
+    private Long mediaId;
+    private String title;
+    private LocalDate releaseDate;
+    private Media.MediaType type;
+}
@@ -0,0 +1,19 @@
+package com.server.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserWithMedia {
+
+    private long id;
+    private String name;
+    private Integer age;
+    private User.Gender gender;
+    private List<MediaSummary> media;
+}
@@ -0,0 +1,19 @@
+package com.server.repository;
+
+import java.util.function.Function;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Runs a batch insert, however many chunks it takes, as one transaction: either
+ * every chunk is committed or none is.
+ */
+public interface BatchTransaction {
+
+    /**
+     * @param rows   the requested rows
+     * @param insert inserts the rows it is given chunk by chunk and reports on
+     *               each; may be subscribed to more than once
+     */
+    <T, R> Flux<R> run(Flux<T> rows, Function<Flux<T>, Flux<R>> insert);
+}
@@ -0,0 +1,41 @@
+package com.server.repository;
+
+import java.time.OffsetDateTime;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+import com.server.model.Change;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The change_log table, filled by {@link #publishPending()} from the changes the
+ * catalog tables' triggers queue in change_log_pending.
+ */
+public interface ChangeRepository extends ReactiveCrudRepository<Change, Long> {
+
+    // The JSONB column is read as text, to be embedded as is in the responses
+    @Query("SELECT seq, entity, operation, data::text AS data, changed_at FROM change_log "
+            + "WHERE seq > :after ORDER BY seq LIMIT :limit")
+    Flux<Change> findAfter(long after, int limit);
+
+    // Numbers the committed changes queued since the last call; returns how many
+    @Query("SELECT publish_changes()")
+    Mono<Long> publishPending();
+
+    // Sequence number of the latest change, 0 when there is none
+    @Query("SELECT coalesce(max(seq), 0) FROM change_log")
+    Mono<Long> findLatestSeq();
+
+    // Sequence number of the oldest change still kept, 0 when there is none
+    @Query("SELECT coalesce(min(seq), 0) FROM change_log")
+    Mono<Long> findOldestSeq();
+
+    // Always keeps the latest change, so the latest sequence number survives an idle period
+    @Modifying
+    @Query("DELETE FROM change_log WHERE changed_at < :before AND seq < (SELECT max(seq) FROM change_log)")
+    Mono<Long> deleteChangedBefore(OffsetDateTime before);
+}
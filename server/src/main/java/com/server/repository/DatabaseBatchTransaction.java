@@ -0,0 +1,22 @@
+package com.server.repository;
+
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import reactor.core.publisher.Flux;
+
+// Streams the rows into the insert inside a database transaction
+@Component
+public class DatabaseBatchTransaction implements BatchTransaction {
+
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+
+    @Override
+    public <T, R> Flux<R> run(Flux<T> rows, Function<Flux<T>, Flux<R>> insert) {
+        return insert.apply(rows).as(transactionalOperator::transactional);
+    }
+}
@@ -1,8 +1,53 @@
 package com.server.repository;
 
+import java.time.LocalDate;
+
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 
 import com.server.model.Media;
+import com.server.model.MediaStats;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface MediaRepository extends ReactiveCrudRepository<Media, Long>, MediaRepositoryCustom {
+
+    // Keyset page ordered by ID; a null limit binds LIMIT NULL, which returns every remaining row
+    @Query("SELECT * FROM media WHERE id > :after ORDER BY id LIMIT :limit")
+    Flux<Media> findPage(long after, Integer limit);
+
+    // Only the columns a client may edit; the rating and subscriber totals are kept by their own writes
+    @Query("UPDATE media SET title = :title, release_date = :releaseDate, type = :type WHERE id = :id RETURNING *")
+    Mono<Media> updateDetails(long id, String title, LocalDate releaseDate, String type);
+
+    @Query("DELETE FROM media WHERE id = :id RETURNING *")
+    Mono<Media> deleteReturningById(long id);
+
+    // Adds the ratings tallied since the last flush (totals in hundredths) to each media's running
+    // totals and recomputes its average, all media in one statement; deleted media are skipped
+    @Query("""
+            UPDATE media m
+            SET rating_sum = m.rating_sum + r.total / 100.0,
+                rating_count = m.rating_count + r.ratings,
+                average_rating = round((m.rating_sum + r.total / 100.0) / (m.rating_count + r.ratings), 2)
+            FROM unnest(:ids, :totals, :counts) AS r(id, total, ratings)
+            WHERE m.id = r.id
+            RETURNING m.*
+            """)
+    Flux<Media> addRatings(Long[] ids, Long[] totals, Long[] counts);
 
-public interface MediaRepository extends ReactiveCrudRepository<Media, Long> {
+    // Null filters are ignored, so a single statement covers every combination
+    @Query("""
+            SELECT count(*) AS count,
+                   count(*) FILTER (WHERE average_rating > :ratedAbove) AS highly_rated_count,
+                   avg(average_rating) AS average_rating,
+                   stddev_pop(average_rating) AS rating_std_dev,
+                   min(release_date) AS oldest_release_date
+            FROM media
+            WHERE (CAST(:type AS VARCHAR) IS NULL OR type = :type)
+              AND (CAST(:releasedFrom AS DATE) IS NULL OR release_date >= :releasedFrom)
+              AND (CAST(:releasedTo AS DATE) IS NULL OR release_date <= :releasedTo)
+            """)
+    Mono<MediaStats> computeStats(String type, LocalDate releasedFrom, LocalDate releasedTo, double ratedAbove);
 }
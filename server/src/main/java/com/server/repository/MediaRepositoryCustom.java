@@ -0,0 +1,20 @@
+package com.server.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+
+import com.server.model.Media;
+import com.server.model.MediaFilter;
+
+import reactor.core.publisher.Flux;
+
+public interface MediaRepositoryCustom {
+
+    // Multi-row insert that skips conflicting rows and returns only the inserted ones
+    Flux<Media> insertAll(List<Media> media);
+
+    // Media past the given ID matching the filter, in the given order (ties broken by ID), at
+    // most limit of them; only the conditions that are set reach the SQL, so each can use its index
+    Flux<Media> findFiltered(MediaFilter filter, long after, Sort sort, Integer limit);
+}
@@ -0,0 +1,107 @@
+package com.server.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+
+import com.server.model.Media;
+import com.server.model.MediaFilter;
+
+import reactor.core.publisher.Flux;
+
+public class MediaRepositoryCustomImpl implements MediaRepositoryCustom {
+
+    // Sort properties accepted by findFiltered; ORDER BY cannot take bind parameters
+    private static final Map<String, String> SORTABLE_COLUMNS = Map.of(
+            "id", "id",
+            "title", "title",
+            "releaseDate", "release_date",
+            "averageRating", "average_rating",
+            "type", "type",
+            "subscriberCount", "subscriber_count");
+
+    @Autowired
+    private R2dbcEntityTemplate template;
+
+    @Override
+    public Flux<Media> insertAll(List<Media> media) {
+        if (media.isEmpty()) {
+            return Flux.empty();
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO media (title, release_date, average_rating, type) VALUES ");
+        for (int i = 0; i < media.size(); i++) {
+            sql.append(i == 0 ? "" : ", ")
+                    .append("(:title").append(i)
+                    .append(", :releaseDate").append(i)
+                    .append(", :averageRating").append(i)
+                    .append(", :type").append(i).append(')');
+        }
+        sql.append(" ON CONFLICT DO NOTHING RETURNING *");
+
+        GenericExecuteSpec spec = template.getDatabaseClient().sql(sql.toString());
+        for (int i = 0; i < media.size(); i++) {
+            Media m = media.get(i);
+            spec = bindNullable(spec, "title" + i, m.getTitle(), String.class);
+            spec = bindNullable(spec, "releaseDate" + i, m.getReleaseDate(), LocalDate.class);
+            spec = spec.bind("averageRating" + i, m.getAverageRating());
+            spec = bindNullable(spec, "type" + i, m.getType() == null ? null : m.getType().name(), String.class);
+        }
+        return spec.map((row, metadata) -> template.getConverter().read(Media.class, row, metadata)).all();
+    }
+
+    @Override
+    public Flux<Media> findFiltered(MediaFilter filter, long after, Sort sort, Integer limit) {
+        StringBuilder orderBy = new StringBuilder();
+        for (Sort.Order order : sort) {
+            String column = SORTABLE_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                return Flux.error(new IllegalArgumentException("Cannot sort media by " + order.getProperty()));
+            }
+            orderBy.append(column).append(order.isDescending() ? " DESC" : " ASC").append(", ");
+        }
+        // The ID breaks ties so the cut made by the limit is deterministic
+        orderBy.append("id");
+
+        StringBuilder sql = new StringBuilder("SELECT * FROM media WHERE id > :after");
+        if (filter.getType() != null) {
+            sql.append(" AND type = :type");
+        }
+        if (filter.getReleasedFrom() != null) {
+            sql.append(" AND release_date >= :releasedFrom");
+        }
+        if (filter.getReleasedTo() != null) {
+            sql.append(" AND release_date <= :releasedTo");
+        }
+        if (filter.getMinRating() != null) {
+            // Compared as NUMERIC, the column type: a DOUBLE PRECISION bind would cast the column and bypass its index
+            sql.append(" AND average_rating >= CAST(:minRating AS NUMERIC)");
+        }
+        sql.append(" ORDER BY ").append(orderBy).append(" LIMIT :limit");
+
+        GenericExecuteSpec spec = template.getDatabaseClient().sql(sql.toString()).bind("after", after);
+        if (filter.getType() != null) {
+            spec = spec.bind("type", filter.getType().name());
+        }
+        if (filter.getReleasedFrom() != null) {
+            spec = spec.bind("releasedFrom", filter.getReleasedFrom());
+        }
+        if (filter.getReleasedTo() != null) {
+            spec = spec.bind("releasedTo", filter.getReleasedTo());
+        }
+        if (filter.getMinRating() != null) {
+            spec = spec.bind("minRating", filter.getMinRating());
+        }
+        return bindNullable(spec, "limit", limit, Integer.class)
+                .map((row, metadata) -> template.getConverter().read(Media.class, row, metadata))
+                .all();
+    }
+
+    static <T> GenericExecuteSpec bindNullable(GenericExecuteSpec spec, String name, T value, Class<T> type) {
+        return value == null ? spec.bindNull(name, type) : spec.bind(name, value);
+    }
+}
@@ -1,12 +1,49 @@
 package com.server.repository;
 
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 
 import com.server.model.Relationship;
 
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-public interface RelationshipRepository extends ReactiveCrudRepository<Relationship, Long> {
+public interface RelationshipRepository
+        extends ReactiveCrudRepository<Relationship, Long>, RelationshipRepositoryCustom {
     Flux<Relationship> findByUserId(Long userId);
     Flux<Relationship> findByMediaId(Long mediaId);
+
+    // Each write adjusts media.subscriber_count in the same statement; existing relationships are skipped
+    @Query("""
+            WITH inserted AS (
+                INSERT INTO relationships (media_id, user_id) VALUES (:mediaId, :userId)
+                ON CONFLICT DO NOTHING
+                RETURNING *
+            ), counted AS (
+                UPDATE media SET subscriber_count = subscriber_count + 1
+                WHERE id IN (SELECT media_id FROM inserted)
+            )
+            SELECT * FROM inserted
+            """)
+    Mono<Relationship> insertReturning(long mediaId, long userId);
+
+    // The table is keyed by (user_id, media_id), so both columns are needed to address a row
+    @Query("""
+            WITH deleted AS (
+                DELETE FROM relationships WHERE media_id = :mediaId AND user_id = :userId
+                RETURNING *
+            ), counted AS (
+                UPDATE media SET subscriber_count = subscriber_count - 1
+                WHERE id IN (SELECT media_id FROM deleted)
+            )
+            SELECT * FROM deleted
+            """)
+    Mono<Relationship> deleteReturning(long mediaId, long userId);
+
+    // Rows come back grouped by the looked-up key so callers can stream the groups
+    @Query("SELECT * FROM relationships WHERE media_id = ANY(:mediaIds) ORDER BY media_id, user_id")
+    Flux<Relationship> findByMediaIds(Long[] mediaIds);
+
+    @Query("SELECT * FROM relationships WHERE user_id = ANY(:userIds) ORDER BY user_id, media_id")
+    Flux<Relationship> findByUserIds(Long[] userIds);
 }
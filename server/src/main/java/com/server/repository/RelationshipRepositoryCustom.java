@@ -0,0 +1,14 @@
+package com.server.repository;
+
+import java.util.List;
+
+import com.server.model.Relationship;
+
+import reactor.core.publisher.Flux;
+
+public interface RelationshipRepositoryCustom {
+
+    // Multi-row insert that skips existing relationships, keeps media.subscriber_count in step
+    // and returns only the inserted ones
+    Flux<Relationship> insertAll(List<Relationship> relationships);
+}
@@ -0,0 +1,42 @@
+package com.server.repository;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+
+import com.server.model.Relationship;
+
+import reactor.core.publisher.Flux;
+
+public class RelationshipRepositoryCustomImpl implements RelationshipRepositoryCustom {
+
+    @Autowired
+    private R2dbcEntityTemplate template;
+
+    @Override
+    public Flux<Relationship> insertAll(List<Relationship> relationships) {
+        if (relationships.isEmpty()) {
+            return Flux.empty();
+        }
+        StringBuilder sql = new StringBuilder("WITH inserted AS (INSERT INTO relationships (media_id, user_id) VALUES ");
+        for (int i = 0; i < relationships.size(); i++) {
+            sql.append(i == 0 ? "" : ", ")
+                    .append("(:mediaId").append(i)
+                    .append(", :userId").append(i).append(')');
+        }
+        sql.append(" ON CONFLICT DO NOTHING RETURNING *)")
+                .append(", counted AS (UPDATE media m SET subscriber_count = m.subscriber_count + c.n")
+                .append(" FROM (SELECT media_id, count(*) AS n FROM inserted GROUP BY media_id) c")
+                .append(" WHERE m.id = c.media_id)")
+                .append(" SELECT * FROM inserted");
+
+        GenericExecuteSpec spec = template.getDatabaseClient().sql(sql.toString());
+        for (int i = 0; i < relationships.size(); i++) {
+            spec = spec.bind("mediaId" + i, relationships.get(i).getMediaId())
+                    .bind("userId" + i, relationships.get(i).getUserId());
+        }
+        return spec.map((row, metadata) -> template.getConverter().read(Relationship.class, row, metadata)).all();
+    }
+}
@@ -1,8 +1,52 @@
 package com.server.repository;
 
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 
+import com.server.model.MediaSummary;
 import com.server.model.User;
+import com.server.model.UserMediaRow;
 
-public interface UserRepository extends ReactiveCrudRepository<User, Long> {
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface UserRepository extends ReactiveCrudRepository<User, Long>, UserRepositoryCustom {
+
+    // Keyset page ordered by ID; a null limit binds LIMIT NULL, which returns every remaining row
+    @Query("SELECT * FROM users WHERE id > :after ORDER BY id LIMIT :limit")
+    Flux<User> findPage(long after, Integer limit);
+
+    // The page of users joined with their media, ordered by user and then media, so each user's
+    // rows are adjacent; a user without media still gets one row
+    @Query("""
+            SELECT u.id AS user_id, u.name, u.age, u.gender,
+                   m.id AS media_id, m.title, m.release_date, m.type
+            FROM (SELECT * FROM users WHERE id > :after ORDER BY id LIMIT :limit) u
+            LEFT JOIN relationships r ON r.user_id = u.id
+            LEFT JOIN media m ON m.id = r.media_id
+            ORDER BY u.id, m.id
+            """)
+    Flux<UserMediaRow> findPageWithMedia(long after, Integer limit);
+
+    @Query("""
+            SELECT m.id, m.title, m.release_date, m.type
+            FROM relationships r
+            JOIN media m ON m.id = r.media_id
+            WHERE r.user_id = :userId
+            ORDER BY m.id
+            """)
+    Flux<MediaSummary> findMediaSummaries(long userId);
+
+    // Relationships cascade with the user, so their media lose a subscriber in the same statement
+    @Query("""
+            WITH deleted AS (
+                DELETE FROM users WHERE id = :id
+                RETURNING *
+            ), counted AS (
+                UPDATE media SET subscriber_count = subscriber_count - 1
+                WHERE id IN (SELECT media_id FROM relationships WHERE user_id IN (SELECT id FROM deleted))
+            )
+            SELECT * FROM deleted
+            """)
+    Mono<User> deleteReturningById(long id);
 }
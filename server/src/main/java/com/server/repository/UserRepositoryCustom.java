@@ -0,0 +1,19 @@
+package com.server.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+
+import com.server.model.User;
+
+import reactor.core.publisher.Flux;
+
+public interface UserRepositoryCustom {
+
+    // Multi-row insert that skips conflicting rows and returns only the inserted ones
+    Flux<User> insertAll(List<User> users);
+
+    // Subscribers of a media item in the given order, at most limit of them (all when null);
+    // only the user columns can be sorted on
+    Flux<User> findSubscribers(long mediaId, Sort sort, Integer limit);
+}
@@ -0,0 +1,73 @@
+package com.server.repository;
+
+import static com.server.repository.MediaRepositoryCustomImpl.bindNullable;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+
+import com.server.model.User;
+
+import reactor.core.publisher.Flux;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    // Sort properties accepted by findSubscribers; ORDER BY cannot take bind parameters
+    private static final Map<String, String> SORTABLE_COLUMNS = Map.of(
+            "id", "u.id",
+            "name", "u.name",
+            "age", "u.age",
+            "gender", "u.gender");
+
+    @Autowired
+    private R2dbcEntityTemplate template;
+
+    @Override
+    public Flux<User> insertAll(List<User> users) {
+        if (users.isEmpty()) {
+            return Flux.empty();
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO users (name, age, gender) VALUES ");
+        for (int i = 0; i < users.size(); i++) {
+            sql.append(i == 0 ? "" : ", ")
+                    .append("(:name").append(i)
+                    .append(", :age").append(i)
+                    .append(", :gender").append(i).append(')');
+        }
+        sql.append(" ON CONFLICT DO NOTHING RETURNING *");
+
+        GenericExecuteSpec spec = template.getDatabaseClient().sql(sql.toString());
+        for (int i = 0; i < users.size(); i++) {
+            User u = users.get(i);
+            spec = bindNullable(spec, "name" + i, u.getName(), String.class);
+            spec = bindNullable(spec, "age" + i, u.getAge(), Integer.class);
+            spec = bindNullable(spec, "gender" + i, u.getGender() == null ? null : u.getGender().name(), String.class);
+        }
+        return spec.map((row, metadata) -> template.getConverter().read(User.class, row, metadata)).all();
+    }
+
+    @Override
+    public Flux<User> findSubscribers(long mediaId, Sort sort, Integer limit) {
+        StringBuilder orderBy = new StringBuilder();
+        for (Sort.Order order : sort) {
+            String column = SORTABLE_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                return Flux.error(new IllegalArgumentException("Cannot sort users by " + order.getProperty()));
+            }
+            orderBy.append(column).append(order.isDescending() ? " DESC" : " ASC").append(", ");
+        }
+        // The ID breaks ties so the cut made by the limit is deterministic
+        orderBy.append("u.id");
+
+        String sql = "SELECT u.* FROM relationships r JOIN users u ON u.id = r.user_id"
+                + " WHERE r.media_id = :mediaId ORDER BY " + orderBy + " LIMIT :limit";
+        GenericExecuteSpec spec = template.getDatabaseClient().sql(sql).bind("mediaId", mediaId);
+        return bindNullable(spec, "limit", limit, Integer.class)
+                .map((row, metadata) -> template.getConverter().read(User.class, row, metadata))
+                .all();
+    }
+}
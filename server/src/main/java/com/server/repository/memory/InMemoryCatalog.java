@@ -0,0 +1,148 @@
+package com.server.repository.memory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.server.model.Media;
+import com.server.model.Relationship;
+import com.server.model.User;
+import com.server.repository.MediaRepository;
+import com.server.repository.RelationshipRepository;
+import com.server.repository.UserRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The media, users and relationship graph of the in-memory storage engine,
+ * loaded from Postgres before the server starts taking requests.
+ *
+ * Reads may come from any thread. Changes are only made by the loader and by
+ * the write-behind flusher, one at a time, and replace entities rather than
+ * mutate them, so an entity handed to a reader never changes underneath it.
+ * A media's subscriber count is always the size of its entry in the graph.
+ */
+@Component
+@Profile("in-memory")
+@DependsOn("flywayInitializer")
+@Slf4j
+public class InMemoryCatalog {
+
+    private static final NavigableSet<Long> NONE = Collections.emptyNavigableSet();
+
+    @Autowired
+    @Qualifier("mediaRepository")
+    private MediaRepository mediaRepository;
+
+    @Autowired
+    @Qualifier("userRepository")
+    private UserRepository userRepository;
+
+    @Autowired
+    @Qualifier("relationshipRepository")
+    private RelationshipRepository relationshipRepository;
+
+    private final NavigableMap<Long, Media> media = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Long, User> users = new ConcurrentSkipListMap<>();
+    private final Map<Long, NavigableSet<Long>> usersByMedia = new ConcurrentHashMap<>();
+    private final Map<Long, NavigableSet<Long>> mediaByUser = new ConcurrentHashMap<>();
+
+    // Relationships first, so media pick up their subscriber counts from the graph
+    @PostConstruct
+    public void load() {
+        long start = System.nanoTime();
+        relationshipRepository.findAll().doOnNext(this::addRelationship).blockLast();
+        mediaRepository.findAll().doOnNext(this::putMedia).blockLast();
+        userRepository.findAll().doOnNext(this::putUser).blockLast();
+        log.info("Loaded {} media, {} users and {} relationships into memory in {} ms.", media.size(), users.size(),
+                relationshipCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    NavigableMap<Long, Media> media() {
+        return Collections.unmodifiableNavigableMap(media);
+    }
+
+    NavigableMap<Long, User> users() {
+        return Collections.unmodifiableNavigableMap(users);
+    }
+
+    NavigableSet<Long> usersOf(long mediaId) {
+        return Collections.unmodifiableNavigableSet(usersByMedia.getOrDefault(mediaId, NONE));
+    }
+
+    NavigableSet<Long> mediaOf(long userId) {
+        return Collections.unmodifiableNavigableSet(mediaByUser.getOrDefault(userId, NONE));
+    }
+
+    long relationshipCount() {
+        return usersByMedia.values().stream().mapToLong(NavigableSet::size).sum();
+    }
+
+    void putMedia(Media item) {
+        media.put(item.getId(), withSubscriberCount(item, usersOf(item.getId()).size()));
+    }
+
+    void removeMedia(long id) {
+        media.remove(id);
+        NavigableSet<Long> subscribers = usersByMedia.remove(id);
+        if (subscribers != null) {
+            subscribers.forEach(userId -> unlink(mediaByUser, userId, id));
+        }
+    }
+
+    void putUser(User user) {
+        users.put(user.getId(), new User(user.getId(), user.getName(), user.getAge(), user.getGender()));
+    }
+
+    void removeUser(long id) {
+        users.remove(id);
+        NavigableSet<Long> subscriptions = mediaByUser.remove(id);
+        if (subscriptions != null) {
+            subscriptions.forEach(mediaId -> {
+                unlink(usersByMedia, mediaId, id);
+                refreshSubscriberCount(mediaId);
+            });
+        }
+    }
+
+    void addRelationship(Relationship relationship) {
+        usersByMedia.computeIfAbsent(relationship.getMediaId(), key -> new ConcurrentSkipListSet<>())
+                .add(relationship.getUserId());
+        mediaByUser.computeIfAbsent(relationship.getUserId(), key -> new ConcurrentSkipListSet<>())
+                .add(relationship.getMediaId());
+        refreshSubscriberCount(relationship.getMediaId());
+    }
+
+    void removeRelationship(Relationship relationship) {
+        unlink(usersByMedia, relationship.getMediaId(), relationship.getUserId());
+        unlink(mediaByUser, relationship.getUserId(), relationship.getMediaId());
+        refreshSubscriberCount(relationship.getMediaId());
+    }
+
+    private void refreshSubscriberCount(long mediaId) {
+        media.computeIfPresent(mediaId, (id, item) -> withSubscriberCount(item, usersOf(id).size()));
+    }
+
+    private static void unlink(Map<Long, NavigableSet<Long>> index, long key, long value) {
+        index.computeIfPresent(key, (k, values) -> {
+            values.remove(value);
+            return values.isEmpty() ? null : values;
+        });
+    }
+
+    private static Media withSubscriberCount(Media item, long subscriberCount) {
+        return new Media(item.getId(), item.getTitle(), item.getReleaseDate(), item.getAverageRating(),
+                item.getType(), subscriberCount);
+    }
+}
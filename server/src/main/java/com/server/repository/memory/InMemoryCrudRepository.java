@@ -0,0 +1,132 @@
+package com.server.repository.memory;
+
+import java.util.List;
+import java.util.NavigableMap;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The CRUD operations of an in-memory repository: reads are answered from the
+ * catalog, writes go to the Postgres repository through the write-behind
+ * queue and reach the catalog once committed.
+ */
+abstract class InMemoryCrudRepository<T> implements ReactiveCrudRepository<T, Long> {
+
+    @Autowired
+    protected InMemoryCatalog catalog;
+
+    @Autowired
+    protected WriteBehindQueue writeBehind;
+
+    // The Postgres repository the writes are persisted through
+    protected abstract ReactiveCrudRepository<T, Long> delegate();
+
+    // The entities held in memory, ordered by ID
+    protected abstract NavigableMap<Long, T> entities();
+
+    protected abstract Long idOf(T entity);
+
+    // Applies a committed insert or update to the catalog
+    protected abstract void stored(T entity);
+
+    // Deletes a row in Postgres and applies the deletion to the catalog
+    protected abstract Mono<Void> deleteRow(long id);
+
+    @Override
+    public <S extends T> Mono<S> save(S entity) {
+        return writeBehind.submit(delegate().save(entity), this::stored);
+    }
+
+    @Override
+    public <S extends T> Flux<S> saveAll(Iterable<S> entities) {
+        return Flux.fromIterable(entities).concatMap(this::save);
+    }
+
+    @Override
+    public <S extends T> Flux<S> saveAll(Publisher<S> entityStream) {
+        return Flux.from(entityStream).concatMap(this::save);
+    }
+
+    @Override
+    public Mono<T> findById(Long id) {
+        return Mono.justOrEmpty(entities().get(id));
+    }
+
+    @Override
+    public Mono<T> findById(Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Long id) {
+        return Mono.just(entities().containsKey(id));
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<T> findAll() {
+        return Flux.fromIterable(entities().values());
+    }
+
+    @Override
+    public Flux<T> findAllById(Iterable<Long> ids) {
+        return Flux.fromIterable(ids).mapNotNull(entities()::get);
+    }
+
+    @Override
+    public Flux<T> findAllById(Publisher<Long> idStream) {
+        return Flux.from(idStream).mapNotNull(entities()::get);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return Mono.just((long) entities().size());
+    }
+
+    @Override
+    public Mono<Void> deleteById(Long id) {
+        return deleteRow(id);
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<Long> id) {
+        return Mono.from(id).flatMap(this::deleteRow);
+    }
+
+    @Override
+    public Mono<Void> delete(T entity) {
+        return deleteRow(idOf(entity));
+    }
+
+    @Override
+    public Mono<Void> deleteAllById(Iterable<? extends Long> ids) {
+        return Flux.fromIterable(ids).concatMap(this::deleteRow).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends T> entities) {
+        return Flux.fromIterable(entities).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends T> entityStream) {
+        return Flux.from(entityStream).concatMap(this::delete).then();
+    }
+
+    // Row by row, so each deletion keeps the dependent counters in step
+    @Override
+    public Mono<Void> deleteAll() {
+        return Flux.defer(() -> Flux.fromIterable(List.copyOf(entities().keySet())))
+                .concatMap(this::deleteRow)
+                .then();
+    }
+}
@@ -0,0 +1,156 @@
+package com.server.repository.memory;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+
+import com.server.model.Media;
+import com.server.model.MediaFilter;
+import com.server.model.MediaStats;
+import com.server.repository.MediaRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+@Primary
+@Profile("in-memory")
+public class InMemoryMediaRepository extends InMemoryCrudRepository<Media> implements MediaRepository {
+
+    // Same sortable properties as the SQL version
+    private static final Map<String, Comparator<Media>> SORTABLE_PROPERTIES = Map.of(
+            "id", Comparator.comparingLong(Media::getId),
+            "title", Comparator.comparing(Media::getTitle),
+            "releaseDate", Comparator.comparing(Media::getReleaseDate),
+            "averageRating", Comparator.comparingDouble(Media::getAverageRating),
+            "type", Comparator.comparing(media -> media.getType().name()),
+            "subscriberCount", Comparator.comparingLong(Media::getSubscriberCount));
+
+    @Autowired
+    @Qualifier("mediaRepository")
+    private MediaRepository mediaRepository;
+
+    @Override
+    protected ReactiveCrudRepository<Media, Long> delegate() {
+        return mediaRepository;
+    }
+
+    @Override
+    protected NavigableMap<Long, Media> entities() {
+        return catalog.media();
+    }
+
+    @Override
+    protected Long idOf(Media media) {
+        return media.getId();
+    }
+
+    @Override
+    protected void stored(Media media) {
+        catalog.putMedia(media);
+    }
+
+    @Override
+    protected Mono<Void> deleteRow(long id) {
+        return deleteReturningById(id).then();
+    }
+
+    @Override
+    public Flux<Media> findPage(long after, Integer limit) {
+        Flux<Media> page = Flux.fromIterable(catalog.media().tailMap(after, false).values());
+        return limit == null ? page : page.take(limit);
+    }
+
+    @Override
+    public Flux<Media> findFiltered(MediaFilter filter, long after, Sort sort, Integer limit) {
+        Comparator<Media> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<Media> property = SORTABLE_PROPERTIES.get(order.getProperty());
+            if (property == null) {
+                return Flux.error(new IllegalArgumentException("Cannot sort media by " + order.getProperty()));
+            }
+            property = order.isDescending() ? property.reversed() : property;
+            comparator = comparator == null ? property : comparator.thenComparing(property);
+        }
+        Comparator<Media> byId = SORTABLE_PROPERTIES.get("id");
+        Comparator<Media> ordering = comparator == null ? byId : comparator.thenComparing(byId);
+
+        Flux<Media> matching = Flux.fromStream(() -> catalog.media().tailMap(after, false).values().stream()
+                .filter(media -> filter.getType() == null || media.getType() == filter.getType())
+                .filter(media -> filter.getReleasedFrom() == null
+                        || !media.getReleaseDate().isBefore(filter.getReleasedFrom()))
+                .filter(media -> filter.getReleasedTo() == null
+                        || !media.getReleaseDate().isAfter(filter.getReleasedTo()))
+                .filter(media -> filter.getMinRating() == null || media.getAverageRating() >= filter.getMinRating())
+                .sorted(ordering));
+        return limit == null ? matching : matching.take(limit);
+    }
+
+    @Override
+    public Mono<Media> updateDetails(long id, String title, LocalDate releaseDate, String type) {
+        return writeBehind.submit(mediaRepository.updateDetails(id, title, releaseDate, type), catalog::putMedia);
+    }
+
+    // Relationships cascade in Postgres and are dropped from the graph with the media
+    @Override
+    public Mono<Media> deleteReturningById(long id) {
+        return writeBehind.submit(mediaRepository.deleteReturningById(id),
+                deleted -> catalog.removeMedia(deleted.getId()));
+    }
+
+    // Same semantics as the SQL aggregate: nulls for an empty selection, population standard deviation
+    @Override
+    public Mono<MediaStats> computeStats(String type, LocalDate releasedFrom, LocalDate releasedTo,
+            double ratedAbove) {
+        return Mono.fromSupplier(() -> {
+            long count = 0;
+            long highlyRated = 0;
+            double sum = 0;
+            double sumOfSquares = 0;
+            LocalDate oldest = null;
+            for (Media media : catalog.media().values()) {
+                if ((type != null && !type.equals(media.getType().name()))
+                        || (releasedFrom != null && media.getReleaseDate().isBefore(releasedFrom))
+                        || (releasedTo != null && media.getReleaseDate().isAfter(releasedTo))) {
+                    continue;
+                }
+                double rating = media.getAverageRating();
+                count++;
+                if (rating > ratedAbove) {
+                    highlyRated++;
+                }
+                sum += rating;
+                sumOfSquares += rating * rating;
+                if (oldest == null || media.getReleaseDate().isBefore(oldest)) {
+                    oldest = media.getReleaseDate();
+                }
+            }
+            if (count == 0) {
+                return new MediaStats(0, 0, null, null, null);
+            }
+            double mean = sum / count;
+            double variance = Math.max(0, sumOfSquares / count - mean * mean);
+            return new MediaStats(count, highlyRated, mean, Math.sqrt(variance), oldest);
+        });
+    }
+
+    @Override
+    public Flux<Media> addRatings(Long[] ids, Long[] totals, Long[] counts) {
+        return writeBehind.submitAll(mediaRepository.addRatings(ids, totals, counts), catalog::putMedia);
+    }
+
+    @Override
+    public Flux<Media> insertAll(List<Media> media) {
+        return writeBehind.submitAll(mediaRepository.insertAll(media), catalog::putMedia);
+    }
+}
@@ -0,0 +1,169 @@
+package com.server.repository.memory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import com.server.model.Relationship;
+import com.server.repository.RelationshipRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Relationships served from the in-memory graph.
+ *
+ * The entity ID is the media ID, so the CRUD operations address every
+ * relationship of a media. Writes go through the counter-maintaining
+ * statements, and saving a relationship inserts it unless it already exists.
+ */
+@Repository
+@Primary
+@Profile("in-memory")
+public class InMemoryRelationshipRepository implements RelationshipRepository {
+
+    @Autowired
+    @Qualifier("relationshipRepository")
+    private RelationshipRepository relationshipRepository;
+
+    @Autowired
+    private InMemoryCatalog catalog;
+
+    @Autowired
+    private WriteBehindQueue writeBehind;
+
+    @Override
+    public Flux<Relationship> findByUserId(Long userId) {
+        return Flux.fromIterable(catalog.mediaOf(userId)).map(mediaId -> new Relationship(mediaId, userId));
+    }
+
+    @Override
+    public Flux<Relationship> findByMediaId(Long mediaId) {
+        return Flux.fromIterable(catalog.usersOf(mediaId)).map(userId -> new Relationship(mediaId, userId));
+    }
+
+    @Override
+    public Mono<Relationship> insertReturning(long mediaId, long userId) {
+        return writeBehind.submit(relationshipRepository.insertReturning(mediaId, userId),
+                catalog::addRelationship);
+    }
+
+    @Override
+    public Mono<Relationship> deleteReturning(long mediaId, long userId) {
+        return writeBehind.submit(relationshipRepository.deleteReturning(mediaId, userId),
+                catalog::removeRelationship);
+    }
+
+    // Grouped by media in ascending order like the SQL version; repeated IDs are looked up once
+    @Override
+    public Flux<Relationship> findByMediaIds(Long[] mediaIds) {
+        return Flux.fromIterable(new TreeSet<>(Arrays.asList(mediaIds))).concatMap(this::findByMediaId);
+    }
+
+    @Override
+    public Flux<Relationship> findByUserIds(Long[] userIds) {
+        return Flux.fromIterable(new TreeSet<>(Arrays.asList(userIds))).concatMap(this::findByUserId);
+    }
+
+    @Override
+    public Flux<Relationship> insertAll(List<Relationship> relationships) {
+        return writeBehind.submitAll(relationshipRepository.insertAll(relationships), catalog::addRelationship);
+    }
+
+    @Override
+    public <S extends Relationship> Mono<S> save(S relationship) {
+        return insertReturning(relationship.getMediaId(), relationship.getUserId()).thenReturn(relationship);
+    }
+
+    @Override
+    public <S extends Relationship> Flux<S> saveAll(Iterable<S> relationships) {
+        return Flux.fromIterable(relationships).concatMap(this::save);
+    }
+
+    @Override
+    public <S extends Relationship> Flux<S> saveAll(Publisher<S> relationshipStream) {
+        return Flux.from(relationshipStream).concatMap(this::save);
+    }
+
+    @Override
+    public Mono<Relationship> findById(Long mediaId) {
+        return findByMediaId(mediaId).next();
+    }
+
+    @Override
+    public Mono<Relationship> findById(Publisher<Long> mediaId) {
+        return Mono.from(mediaId).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Long mediaId) {
+        return Mono.fromSupplier(() -> !catalog.usersOf(mediaId).isEmpty());
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<Long> mediaId) {
+        return Mono.from(mediaId).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<Relationship> findAll() {
+        return Flux.fromIterable(catalog.media().keySet()).concatMap(this::findByMediaId);
+    }
+
+    @Override
+    public Flux<Relationship> findAllById(Iterable<Long> mediaIds) {
+        return Flux.fromIterable(mediaIds).concatMap(this::findByMediaId);
+    }
+
+    @Override
+    public Flux<Relationship> findAllById(Publisher<Long> mediaIdStream) {
+        return Flux.from(mediaIdStream).concatMap(this::findByMediaId);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return Mono.fromSupplier(catalog::relationshipCount);
+    }
+
+    @Override
+    public Mono<Void> deleteById(Long mediaId) {
+        return findByMediaId(mediaId).collectList().flatMapMany(Flux::fromIterable).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<Long> mediaId) {
+        return Mono.from(mediaId).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(Relationship relationship) {
+        return deleteReturning(relationship.getMediaId(), relationship.getUserId()).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAllById(Iterable<? extends Long> mediaIds) {
+        return Flux.fromIterable(mediaIds).concatMap(this::deleteById).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends Relationship> relationships) {
+        return Flux.fromIterable(relationships).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends Relationship> relationshipStream) {
+        return Flux.from(relationshipStream).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return findAll().collectList().flatMapMany(Flux::fromIterable).concatMap(this::delete).then();
+    }
+}
@@ -0,0 +1,131 @@
+package com.server.repository.memory;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+
+import com.server.model.Media;
+import com.server.model.MediaSummary;
+import com.server.model.User;
+import com.server.model.UserMediaRow;
+import com.server.repository.UserRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+@Primary
+@Profile("in-memory")
+public class InMemoryUserRepository extends InMemoryCrudRepository<User> implements UserRepository {
+
+    // Same sortable properties as the SQL version
+    private static final Map<String, Comparator<User>> SORTABLE_PROPERTIES = Map.of(
+            "id", Comparator.comparingLong(User::getId),
+            "name", Comparator.comparing(User::getName),
+            "age", Comparator.comparing(User::getAge),
+            "gender", Comparator.comparing(user -> user.getGender().name()));
+
+    @Autowired
+    @Qualifier("userRepository")
+    private UserRepository userRepository;
+
+    @Override
+    protected ReactiveCrudRepository<User, Long> delegate() {
+        return userRepository;
+    }
+
+    @Override
+    protected NavigableMap<Long, User> entities() {
+        return catalog.users();
+    }
+
+    @Override
+    protected Long idOf(User user) {
+        return user.getId();
+    }
+
+    @Override
+    protected void stored(User user) {
+        catalog.putUser(user);
+    }
+
+    @Override
+    protected Mono<Void> deleteRow(long id) {
+        return deleteReturningById(id).then();
+    }
+
+    @Override
+    public Flux<User> findPage(long after, Integer limit) {
+        Flux<User> page = Flux.fromIterable(catalog.users().tailMap(after, false).values());
+        return limit == null ? page : page.take(limit);
+    }
+
+    @Override
+    public Flux<UserMediaRow> findPageWithMedia(long after, Integer limit) {
+        return findPage(after, limit).concatMap(user -> {
+            NavigableSet<Long> mediaIds = catalog.mediaOf(user.getId());
+            if (mediaIds.isEmpty()) {
+                return Flux.just(new UserMediaRow(user.getId(), user.getName(), user.getAge(), user.getGender(),
+                        null, null, null, null));
+            }
+            return Flux.fromIterable(mediaIds)
+                    .mapNotNull(catalog.media()::get)
+                    .map(media -> new UserMediaRow(user.getId(), user.getName(), user.getAge(), user.getGender(),
+                            media.getId(), media.getTitle(), media.getReleaseDate(), media.getType()));
+        });
+    }
+
+    @Override
+    public Flux<MediaSummary> findMediaSummaries(long userId) {
+        return Flux.fromIterable(catalog.mediaOf(userId))
+                .mapNotNull(catalog.media()::get)
+                .map(InMemoryUserRepository::summarize);
+    }
+
+    @Override
+    public Flux<User> findSubscribers(long mediaId, Sort sort, Integer limit) {
+        Comparator<User> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<User> property = SORTABLE_PROPERTIES.get(order.getProperty());
+            if (property == null) {
+                return Flux.error(new IllegalArgumentException("Cannot sort users by " + order.getProperty()));
+            }
+            property = order.isDescending() ? property.reversed() : property;
+            comparator = comparator == null ? property : comparator.thenComparing(property);
+        }
+        Comparator<User> byId = SORTABLE_PROPERTIES.get("id");
+        Comparator<User> ordering = comparator == null ? byId : comparator.thenComparing(byId);
+
+        Flux<User> subscribers = Flux.fromStream(() -> catalog.usersOf(mediaId).stream()
+                .map(catalog.users()::get)
+                .filter(user -> user != null)
+                .sorted(ordering));
+        return limit == null ? subscribers : subscribers.take(limit);
+    }
+
+    // The user's relationships go with it, and their media lose a subscriber
+    @Override
+    public Mono<User> deleteReturningById(long id) {
+        return writeBehind.submit(userRepository.deleteReturningById(id),
+                deleted -> catalog.removeUser(deleted.getId()));
+    }
+
+    @Override
+    public Flux<User> insertAll(List<User> users) {
+        return writeBehind.submitAll(userRepository.insertAll(users), catalog::putUser);
+    }
+
+    private static MediaSummary summarize(Media media) {
+        return new MediaSummary(media.getId(), media.getTitle(), media.getReleaseDate(), media.getType());
+    }
+}
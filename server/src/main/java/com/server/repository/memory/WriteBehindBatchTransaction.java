@@ -0,0 +1,34 @@
+package com.server.repository.memory;
+
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.server.repository.BatchTransaction;
+
+import reactor.core.publisher.Flux;
+
+// The repositories' writes only queue up here, so a transaction around them would
+// cover nothing. The whole batch is queued as one write instead, and its chunks run
+// inside the flusher's transaction. The rows are read in full first, so the flusher
+// never waits on the request body
+@Component
+@Primary
+@Profile("in-memory")
+public class WriteBehindBatchTransaction implements BatchTransaction {
+
+    @Autowired
+    private WriteBehindQueue writeBehind;
+
+    @Override
+    public <T, R> Flux<R> run(Flux<T> rows, Function<Flux<T>, Flux<R>> insert) {
+        return rows.collectList()
+                .flatMapMany(requested -> writeBehind.submitAll(
+                        Flux.defer(() -> insert.apply(Flux.fromIterable(requested))),
+                        // Each chunk is applied to memory by the repository that inserted it
+                        result -> { }));
+    }
+}
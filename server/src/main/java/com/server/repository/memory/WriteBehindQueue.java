@@ -0,0 +1,198 @@
+package com.server.repository.memory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Funnels every write of the in-memory storage engine to Postgres in batches.
+ *
+ * Writes queue up while the previous batch commits and are then run in order
+ * inside a single transaction, so one commit covers many writes. Only after
+ * the commit is each write applied to memory and its caller's Mono completed:
+ * a completed write is durable, and reads never see data Postgres does not
+ * have. If a batch fails, its writes are retried one by one so a single bad
+ * write fails alone.
+ *
+ * A write may itself submit writes, as a batch insert does for each of its
+ * chunks: those run inline, in the same transaction, and are applied to memory
+ * when the enclosing write is.
+ */
+@Component
+@Profile("in-memory")
+@Slf4j
+public class WriteBehindQueue {
+
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${storage.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${storage.write-behind.max-batch-size:500}")
+    private int maxBatchSize;
+
+    @Value("${storage.write-behind.shutdown-timeout:10s}")
+    private Duration shutdownTimeout;
+
+    private BlockingQueue<PendingWrite<?>> pending;
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        pending = new ArrayBlockingQueue<>(capacity);
+        Gauge.builder("storage.write_behind.pending", pending, BlockingQueue::size)
+                .description("Writes waiting for the next write-behind batch")
+                .register(meterRegistry);
+    }
+
+    // Gives queued writes a chance to reach Postgres before the connection pool goes away
+    @PreDestroy
+    public void drainOnShutdown() throws InterruptedException {
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        while ((!pending.isEmpty() || flushing.get()) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        if (!pending.isEmpty()) {
+            log.warn("Shutting down with {} unacknowledged writes still queued.", pending.size());
+        }
+    }
+
+    /**
+     * Queues a write and completes once it has been committed and applied.
+     *
+     * @param write the Postgres statement; subscribed to by the flusher, possibly
+     *              more than once if its batch has to be retried
+     * @param apply updates memory with the committed result; not called when the
+     *              write emits nothing
+     */
+    public <R> Mono<R> submit(Mono<R> write, Consumer<? super R> apply) {
+        return Mono.deferContextual(context -> context.<PendingWrite<?>>getOrEmpty(PendingWrite.class)
+                .map(enclosing -> enclosing.nested(write, apply))
+                .orElseGet(() -> enqueue(write, apply)));
+    }
+
+    private <R> Mono<R> enqueue(Mono<R> write, Consumer<? super R> apply) {
+        return Mono.create(sink -> {
+            if (!pending.offer(new PendingWrite<>(write, apply, sink))) {
+                sink.error(new TransientDataAccessResourceException("Write-behind queue is full"));
+                return;
+            }
+            drain();
+        });
+    }
+
+    /**
+     * Queues a multi-row write as a single entry of a batch.
+     */
+    public <R> Flux<R> submitAll(Flux<R> write, Consumer<? super R> apply) {
+        return submit(write.collectList(), rows -> rows.forEach(apply))
+                .flatMapIterable(Function.identity());
+    }
+
+    private void drain() {
+        if (pending.isEmpty() || !flushing.compareAndSet(false, true)) {
+            return;
+        }
+        List<PendingWrite<?>> batch = new ArrayList<>(Math.min(pending.size(), maxBatchSize));
+        pending.drainTo(batch, maxBatchSize);
+
+        // Whatever arrived during this flush forms the next batch
+        flush(batch)
+                .doFinally(signal -> {
+                    flushing.set(false);
+                    drain();
+                })
+                .subscribe();
+    }
+
+    private Mono<Void> flush(List<PendingWrite<?>> batch) {
+        return Flux.fromIterable(batch)
+                .concatMap(PendingWrite::execute)
+                .then()
+                .as(transactionalOperator::transactional)
+                .doOnSuccess(committed -> batch.forEach(PendingWrite::complete))
+                .onErrorResume(error -> {
+                    if (batch.size() == 1) {
+                        batch.get(0).fail(error);
+                        return Mono.empty();
+                    }
+                    log.warn("Write-behind batch of {} failed, retrying its writes one by one: {}", batch.size(),
+                            error.getMessage());
+                    return Flux.fromIterable(batch)
+                            .concatMap(write -> flush(List.of(write)))
+                            .then();
+                });
+    }
+
+    private static final class PendingWrite<R> {
+
+        private final Mono<R> write;
+        private final Consumer<? super R> apply;
+        private final MonoSink<R> sink;
+        private final List<Runnable> nestedApplies = new ArrayList<>();
+        private R result;
+
+        private PendingWrite(Mono<R> write, Consumer<? super R> apply, MonoSink<R> sink) {
+            this.write = write;
+            this.apply = apply;
+            this.sink = sink;
+        }
+
+        private Mono<Void> execute() {
+            return Mono.defer(() -> {
+                result = null;
+                nestedApplies.clear();
+                return write.doOnNext(row -> result = row)
+                        .then()
+                        .contextWrite(context -> context.put(PendingWrite.class, this));
+            });
+        }
+
+        // Runs a write submitted by this one now, and applies it along with this one
+        private <N> Mono<N> nested(Mono<N> write, Consumer<? super N> apply) {
+            return write.doOnNext(row -> nestedApplies.add(() -> apply.accept(row)));
+        }
+
+        private void complete() {
+            try {
+                nestedApplies.forEach(Runnable::run);
+                if (result != null) {
+                    apply.accept(result);
+                }
+            } catch (RuntimeException e) {
+                // Already committed, so the caller still gets its result
+                log.error("Failed to apply a committed write to memory: {}", e.getMessage());
+            }
+            sink.success(result);
+        }
+
+        private void fail(Throwable error) {
+            sink.error(error);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.server.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import com.server.model.BatchInsertResult;
+
+/**
+ * Matches the rows returned by a multi-row {@code INSERT ... ON CONFLICT DO
+ * NOTHING RETURNING *} back to the rows that were requested.
+ */
+final class BatchInserts {
+
+    private BatchInserts() {
+    }
+
+    /**
+     * Builds one result per requested row, in request order. A requested row is
+     * reported as created when an inserted row with the same key was returned;
+     * repeated keys within the chunk are reported as conflicts after the first.
+     *
+     * @param offset    index of the first requested row within the whole batch
+     * @param requested the rows sent to the database
+     * @param inserted  the rows returned by the database, keyed by {@code key}
+     * @param key       natural key used to match requested and inserted rows
+     * @param id        generated ID of an inserted row, or null when it has none
+     */
+    static <T, K> List<BatchInsertResult> match(long offset, List<T> requested, Map<K, T> inserted,
+            Function<T, K> key, Function<T, Long> id) {
+        return IntStream.range(0, requested.size())
+                .mapToObj(i -> {
+                    T row = inserted.remove(key.apply(requested.get(i)));
+                    return row == null
+                            ? new BatchInsertResult(offset + i, null, BatchInsertResult.Status.CONFLICT)
+                            : new BatchInsertResult(offset + i, id.apply(row), BatchInsertResult.Status.CREATED);
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,31 @@
+package com.server.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Version of the whole catalog (media, users and their relationships), bumped
+ * once every write through the services has finished, committed or not. A read
+ * that starts after looking up the version therefore sees at least the data of
+ * that version, which makes the version usable as a validator for cached
+ * responses. The start time tells apart the versions of different runs.
+ */
+@Component
+public class CatalogVersion {
+
+    private final long startedAt = System.currentTimeMillis();
+    private final AtomicLong version = new AtomicLong();
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    public void bump() {
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,184 @@
+package com.server.service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Service;
+
+import com.server.model.Change;
+import com.server.repository.ChangeRepository;
+
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+/**
+ * Streams the change_log table to any number of consumers. Triggers on the
+ * catalog tables queue each change in change_log_pending and send a
+ * notification on catalog_changes_pending when their transaction commits; the
+ * feed then publishes the queued changes to change_log, which numbers them and
+ * notifies catalog_changes. A single connection outside the pool listens to
+ * both channels, and each catalog_changes notification wakes every consumer up
+ * to read the changes past the last one it has seen.
+ *
+ * Numbers are only given once a change is committed, and publishers take turns,
+ * so a consumer never misses a change by reading past it: once seq N is
+ * visible, no change below N appears later. The changes to a row are numbered
+ * in its commit order; unrelated changes committed close together may be
+ * numbered in either order.
+ */
+@Service
+@DependsOn("flywayInitializer")
+@Slf4j
+public class ChangeFeed {
+
+    private static final String CHANNEL = "catalog_changes";
+    private static final String PENDING_CHANNEL = "catalog_changes_pending";
+
+    @Autowired
+    private ChangeRepository changeRepository;
+
+    @Autowired
+    private R2dbcProperties r2dbcProperties;
+
+    @Value("${changes.page-size:1000}")
+    private int pageSize;
+
+    // Publishes also without a notification, in case a publish failed
+    @Value("${changes.publish-interval:10s}")
+    private Duration publishInterval;
+
+    @Value("${changes.retention:7d}")
+    private Duration retention;
+
+    @Value("${changes.purge-interval:1h}")
+    private Duration purgeInterval;
+
+    private Flux<String> wakeUps;
+    private Disposable publisher;
+    private Disposable purger;
+
+    @PostConstruct
+    public void start() {
+        ConnectionFactory listenerFactory = ConnectionFactoryBuilder.withUrl(r2dbcProperties.getUrl())
+                .username(r2dbcProperties.getUsername())
+                .password(r2dbcProperties.getPassword())
+                .build();
+        // Also publishes and wakes consumers up once listening, as notifications sent
+        // while (re)connecting are lost
+        Flux<String> notifications = Flux.usingWhen(
+                Mono.from(listenerFactory.create()).cast(PostgresqlConnection.class),
+                connection -> listen(connection, CHANNEL).then(listen(connection, PENDING_CHANNEL))
+                        .thenMany(connection.getNotifications().map(Notification::getName)
+                                .startWith(PENDING_CHANNEL, CHANNEL)),
+                PostgresqlConnection::close)
+                .doOnError(e -> log.warn("Lost the {} listener connection: {}", CHANNEL, e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .share();
+        wakeUps = notifications.filter(CHANNEL::equals);
+
+        // Always subscribed, so changes are published while no consumer is streaming them
+        publisher = Flux.<Object>merge(notifications.filter(PENDING_CHANNEL::equals), Flux.interval(publishInterval))
+                .onBackpressureLatest()
+                .concatMap(trigger -> changeRepository.publishPending()
+                        .onErrorResume(e -> {
+                            log.warn("Failed to publish changes: {}", e.getMessage());
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+
+        purger = Flux.interval(purgeInterval)
+                .concatMap(tick -> changeRepository.deleteChangedBefore(OffsetDateTime.now().minus(retention))
+                        .onErrorResume(e -> {
+                            log.warn("Failed to purge the change log: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        publisher.dispose();
+        purger.dispose();
+    }
+
+    // Never ends: reads everything past the given sequence number, then whatever
+    // each notification announces. A slow consumer only keeps the latest wake-up
+    public Flux<Change> getChanges(long after) {
+        AtomicLong last = new AtomicLong(after);
+        return Flux.concat(Mono.just(CHANNEL), wakeUps.onBackpressureLatest())
+                .concatMap(wakeUp -> readAfter(last), 1);
+    }
+
+    /**
+     * Loads a consumer's state and keeps it up to date: runs the load once the
+     * latest sequence number is read, then passes each later change to the
+     * entity to apply, one at a time, until the returned subscription is
+     * disposed. Changes committed between reading the sequence number and the
+     * load are seen twice, so applying a change must be idempotent. Changes are
+     * applied on a scheduler of their own rather than on the connection's I/O
+     * thread, which may then go on reading while a slow change is applied.
+     */
+    public Disposable follow(Change.Entity entity, Runnable load, Consumer<Change> apply) {
+        AtomicLong appliedSeq = new AtomicLong(getLatestSeq().block());
+        load.run();
+        return Flux.defer(() -> getChanges(appliedSeq.get()))
+                .publishOn(Schedulers.single())
+                .doOnNext(change -> {
+                    if (change.getEntity() == entity) {
+                        apply.accept(change);
+                    }
+                    appliedSeq.set(change.getSeq());
+                })
+                .doOnError(e -> log.warn("Stopped following {} changes: {}", entity, e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    public Mono<Long> getLatestSeq() {
+        return changeRepository.findLatestSeq();
+    }
+
+    private static Mono<Void> listen(PostgresqlConnection connection, String channel) {
+        return connection.createStatement("LISTEN " + channel).execute()
+                .flatMap(PostgresqlResult::getRowsUpdated)
+                .then();
+    }
+
+    // Whether the changes following the given sequence number are all still kept
+    public Mono<Boolean> isKept(long after) {
+        return changeRepository.findOldestSeq().map(oldest -> after >= oldest - 1);
+    }
+
+    // Pages through the changes past the last one seen until a short page
+    private Flux<Change> readAfter(AtomicLong last) {
+        return Flux.defer(() -> changeRepository.findAfter(last.get(), pageSize))
+                .collectList()
+                .doOnNext(page -> {
+                    if (!page.isEmpty()) {
+                        last.set(page.get(page.size() - 1).getSeq());
+                    }
+                })
+                .repeat()
+                .takeUntil(page -> page.size() < pageSize)
+                .flatMapIterable(Function.<List<Change>>identity());
+    }
+}
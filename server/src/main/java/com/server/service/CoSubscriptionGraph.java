@@ -0,0 +1,353 @@
+package com.server.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.server.model.Change;
+import com.server.model.Relationship;
+import com.server.repository.RelationshipRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+
+/**
+ * The user-media subscription graph held in memory, for "subscribers of X also
+ * watch Y" queries that would otherwise take a two-hop self-join of
+ * relationships.
+ *
+ * The bulk of the graph is a compressed sparse row snapshot in both directions:
+ * sorted id arrays map media and user ids to dense indexes, and each vertex's
+ * neighbours are a sorted slice of one int array, so an edge costs two ints
+ * rather than a Relationship object. Edges added or removed since the snapshot
+ * are kept aside in a small delta, which is folded into a new snapshot once it
+ * grows past a fraction of the graph. Like {@link RatingAnalytics}, the graph is
+ * loaded from the table on startup and then follows the change feed, which also
+ * carries batch inserts and the relationships removed along with their media
+ * or user.
+ */
+@Service
+@DependsOn("flywayInitializer")
+@Slf4j
+public class CoSubscriptionGraph {
+
+    // Of (media ID, shared subscribers) pairs: fewer shared, then higher IDs, rank lower
+    private static final Comparator<long[]> RANKING = Comparator.<long[]>comparingLong(candidate -> candidate[1])
+            .thenComparing(Comparator.<long[]>comparingLong(candidate -> candidate[0]).reversed());
+
+    @Autowired
+    @Qualifier("relationshipRepository")
+    private RelationshipRepository relationshipRepository;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${related.min-compaction:1024}")
+    private int minCompaction;
+
+    // Replaced as a whole on compaction, so readers never mix a snapshot with another's delta
+    private volatile Graph graph;
+    private Disposable subscription;
+
+    // A change seen twice is harmless, as adding or removing an edge is idempotent
+    @PostConstruct
+    public void load() {
+        subscription = changeFeed.follow(Change.Entity.RELATIONSHIP, () -> {
+            long start = System.nanoTime();
+            Edges edges = new Edges();
+            relationshipRepository.findAll().doOnNext(rel -> edges.add(rel.getMediaId(), rel.getUserId()))
+                    .blockLast();
+            graph = new Graph(new Snapshot(edges), new Delta());
+            log.info("Loaded {} subscriptions of {} media in {} ms.", edges.size, graph.snapshot.mediaIds.length,
+                    (System.nanoTime() - start) / 1_000_000);
+        }, this::apply);
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscription.dispose();
+    }
+
+    /**
+     * The media sharing the most subscribers with the given one, mapped to the
+     * number they share, most shared first and by ID among equals.
+     */
+    public Map<Long, Integer> getRelated(long mediaId, int limit) {
+        Graph current = graph;
+        Snapshot snapshot = current.snapshot;
+        Delta delta = current.delta;
+
+        // Media of the snapshot are counted by index, those only in the delta by ID
+        int[] shared = new int[snapshot.mediaIds.length];
+        Map<Long, Integer> sharedOutside = new HashMap<>();
+        List<Long> touchedOutside = new ArrayList<>();
+        int[] touched = new int[16];
+        int touchedCount = 0;
+
+        int source = Arrays.binarySearch(snapshot.mediaIds, mediaId);
+        long[] subscribers = neighbours(snapshot.mediaOffsets, snapshot.mediaUsers, snapshot.userIds, source,
+                delta.addedByMedia.get(mediaId), delta.removedByMedia.get(mediaId));
+        for (long userId : subscribers) {
+            int user = Arrays.binarySearch(snapshot.userIds, userId);
+            long[] watched = neighbours(snapshot.userOffsets, snapshot.userMedia, snapshot.mediaIds, user,
+                    delta.addedByUser.get(userId), delta.removedByUser.get(userId));
+            for (long other : watched) {
+                if (other == mediaId) {
+                    continue;
+                }
+                int index = Arrays.binarySearch(snapshot.mediaIds, other);
+                if (index >= 0) {
+                    if (shared[index]++ == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount * 2);
+                        }
+                        touched[touchedCount++] = index;
+                    }
+                } else if (sharedOutside.merge(other, 1, Integer::sum) == 1) {
+                    touchedOutside.add(other);
+                }
+            }
+        }
+
+        // The worst of the best so far at the head, so each candidate is compared once
+        PriorityQueue<long[]> best = new PriorityQueue<>(RANKING);
+        for (int i = 0; i < touchedCount; i++) {
+            offer(best, limit, snapshot.mediaIds[touched[i]], shared[touched[i]]);
+        }
+        for (Long other : touchedOutside) {
+            offer(best, limit, other, sharedOutside.get(other));
+        }
+        List<long[]> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING.reversed());
+        Map<Long, Integer> related = new LinkedHashMap<>();
+        ranked.forEach(candidate -> related.put(candidate[0], (int) candidate[1]));
+        return related;
+    }
+
+    private static void offer(PriorityQueue<long[]> best, int limit, long mediaId, long shared) {
+        if (limit == 0) {
+            return;
+        }
+        long[] candidate = { mediaId, shared };
+        if (best.size() < limit) {
+            best.add(candidate);
+        } else if (RANKING.compare(candidate, best.peek()) > 0) {
+            best.poll();
+            best.add(candidate);
+        }
+    }
+
+    // The IDs adjacent to a vertex (index < 0 when not in the snapshot), as of the delta
+    private static long[] neighbours(int[] offsets, int[] adjacency, long[] neighbourIds, int index,
+            Set<Long> added, Set<Long> removed) {
+        int from = index < 0 ? 0 : offsets[index];
+        int to = index < 0 ? 0 : offsets[index + 1];
+        long[] result = new long[to - from + (added == null ? 0 : added.size())];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            long id = neighbourIds[adjacency[i]];
+            if (removed == null || !removed.contains(id)) {
+                result[count++] = id;
+            }
+        }
+        if (added != null) {
+            for (Long id : added) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, Math.max(4, count * 2));
+                }
+                result[count++] = id;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private void apply(Change change) {
+        try {
+            Relationship relationship = objectMapper.readValue(change.getData(), Relationship.class);
+            Graph current = graph;
+            if (change.getOperation() == Change.Operation.DELETE) {
+                current.remove(relationship.getMediaId(), relationship.getUserId());
+            } else {
+                current.add(relationship.getMediaId(), relationship.getUserId());
+            }
+            if (current.delta.size.get() > Math.max(minCompaction, current.snapshot.edgeCount() / 8)) {
+                compact(current);
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("Skipping unreadable change {}: {}", change.getSeq(), e.getMessage());
+        }
+    }
+
+    // Only ever called from the change feed subscriber, the single writer of the graph
+    private void compact(Graph current) {
+        long start = System.nanoTime();
+        Snapshot snapshot = current.snapshot;
+        Delta delta = current.delta;
+        Edges edges = new Edges();
+        for (int media = 0; media < snapshot.mediaIds.length; media++) {
+            long mediaId = snapshot.mediaIds[media];
+            Set<Long> removed = delta.removedByMedia.get(mediaId);
+            for (int i = snapshot.mediaOffsets[media]; i < snapshot.mediaOffsets[media + 1]; i++) {
+                long userId = snapshot.userIds[snapshot.mediaUsers[i]];
+                if (removed == null || !removed.contains(userId)) {
+                    edges.add(mediaId, userId);
+                }
+            }
+        }
+        delta.addedByMedia.forEach((mediaId, userIds) -> userIds.forEach(userId -> edges.add(mediaId, userId)));
+        graph = new Graph(new Snapshot(edges), new Delta());
+        log.info("Compacted {} subscription changes into a graph of {} in {} ms.", delta.size.get(), edges.size,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private record Graph(Snapshot snapshot, Delta delta) {
+
+        void add(long mediaId, long userId) {
+            if (!delta.removeEdge(delta.removedByMedia, delta.removedByUser, mediaId, userId)
+                    && !snapshot.contains(mediaId, userId)) {
+                delta.addEdge(delta.addedByMedia, delta.addedByUser, mediaId, userId);
+            }
+        }
+
+        void remove(long mediaId, long userId) {
+            if (!delta.removeEdge(delta.addedByMedia, delta.addedByUser, mediaId, userId)
+                    && snapshot.contains(mediaId, userId)) {
+                delta.addEdge(delta.removedByMedia, delta.removedByUser, mediaId, userId);
+            }
+        }
+    }
+
+    // Edges added to or removed from the snapshot, indexed from both ends
+    private static class Delta {
+
+        private final Map<Long, Set<Long>> addedByMedia = new ConcurrentHashMap<>();
+        private final Map<Long, Set<Long>> addedByUser = new ConcurrentHashMap<>();
+        private final Map<Long, Set<Long>> removedByMedia = new ConcurrentHashMap<>();
+        private final Map<Long, Set<Long>> removedByUser = new ConcurrentHashMap<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        void addEdge(Map<Long, Set<Long>> byMedia, Map<Long, Set<Long>> byUser, long mediaId, long userId) {
+            if (byMedia.computeIfAbsent(mediaId, key -> ConcurrentHashMap.newKeySet()).add(userId)) {
+                byUser.computeIfAbsent(userId, key -> ConcurrentHashMap.newKeySet()).add(mediaId);
+                size.incrementAndGet();
+            }
+        }
+
+        boolean removeEdge(Map<Long, Set<Long>> byMedia, Map<Long, Set<Long>> byUser, long mediaId, long userId) {
+            Set<Long> userIds = byMedia.get(mediaId);
+            if (userIds == null || !userIds.remove(userId)) {
+                return false;
+            }
+            byUser.get(userId).remove(mediaId);
+            size.decrementAndGet();
+            return true;
+        }
+    }
+
+    // Both directions of the graph as compressed sparse rows over dense indexes
+    private static class Snapshot {
+
+        private final long[] mediaIds;
+        private final long[] userIds;
+        private final int[] mediaOffsets;
+        private final int[] mediaUsers;
+        private final int[] userOffsets;
+        private final int[] userMedia;
+
+        Snapshot(Edges edges) {
+            mediaIds = distinctSorted(edges.mediaIds, edges.size);
+            userIds = distinctSorted(edges.userIds, edges.size);
+            int[] mediaIndexes = new int[edges.size];
+            int[] userIndexes = new int[edges.size];
+            for (int i = 0; i < edges.size; i++) {
+                mediaIndexes[i] = Arrays.binarySearch(mediaIds, edges.mediaIds[i]);
+                userIndexes[i] = Arrays.binarySearch(userIds, edges.userIds[i]);
+            }
+            mediaOffsets = new int[mediaIds.length + 1];
+            mediaUsers = rows(mediaIndexes, userIndexes, edges.size, mediaOffsets);
+            userOffsets = new int[userIds.length + 1];
+            userMedia = rows(userIndexes, mediaIndexes, edges.size, userOffsets);
+        }
+
+        int edgeCount() {
+            return mediaUsers.length;
+        }
+
+        boolean contains(long mediaId, long userId) {
+            int media = Arrays.binarySearch(mediaIds, mediaId);
+            int user = Arrays.binarySearch(userIds, userId);
+            return media >= 0 && user >= 0
+                    && Arrays.binarySearch(mediaUsers, mediaOffsets[media], mediaOffsets[media + 1], user) >= 0;
+        }
+
+        private static long[] distinctSorted(long[] ids, int size) {
+            long[] sorted = Arrays.copyOf(ids, size);
+            Arrays.sort(sorted);
+            int distinct = 0;
+            for (int i = 0; i < size; i++) {
+                if (distinct == 0 || sorted[distinct - 1] != sorted[i]) {
+                    sorted[distinct++] = sorted[i];
+                }
+            }
+            return Arrays.copyOf(sorted, distinct);
+        }
+
+        // Counting sort of the edges by their source, each row then sorted for binary search
+        private static int[] rows(int[] sources, int[] targets, int size, int[] offsets) {
+            for (int i = 0; i < size; i++) {
+                offsets[sources[i] + 1]++;
+            }
+            for (int i = 1; i < offsets.length; i++) {
+                offsets[i] += offsets[i - 1];
+            }
+            int[] adjacency = new int[size];
+            int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+            for (int i = 0; i < size; i++) {
+                adjacency[next[sources[i]]++] = targets[i];
+            }
+            for (int row = 0; row < offsets.length - 1; row++) {
+                Arrays.sort(adjacency, offsets[row], offsets[row + 1]);
+            }
+            return adjacency;
+        }
+    }
+
+    // A growable pair of ID arrays
+    private static class Edges {
+
+        private long[] mediaIds = new long[1024];
+        private long[] userIds = new long[1024];
+        private int size;
+
+        void add(long mediaId, long userId) {
+            if (size == mediaIds.length) {
+                mediaIds = Arrays.copyOf(mediaIds, size * 2);
+                userIds = Arrays.copyOf(userIds, size * 2);
+            }
+            mediaIds[size] = mediaId;
+            userIds[size] = userId;
+            size++;
+        }
+    }
+}
@@ -1,15 +1,35 @@
 package com.server.service;
 
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Function;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import com.server.model.BatchInsertResult;
+import com.server.model.CacheStatistics;
 import com.server.model.Media;
+import com.server.model.MediaFilter;
+import com.server.model.MediaStats;
+import com.server.model.MediaUsers;
+import com.server.model.RelatedMedia;
 import com.server.model.Relationship;
+import com.server.model.User;
+import com.server.repository.BatchTransaction;
 import com.server.repository.MediaRepository;
 import com.server.repository.RelationshipRepository;
+import com.server.repository.UserRepository;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @Service
 public class MediaService {
@@ -20,46 +40,151 @@ public class MediaService {
     @Autowired
     private RelationshipRepository relationshipRepository;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AsyncCache<Long, Media> mediaCache;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private BatchTransaction batchTransaction;
+
+    @Autowired
+    private CoSubscriptionGraph coSubscriptionGraph;
+
+    @Autowired
+    private RatingAccumulator ratingAccumulator;
+
+    @Value("${batch.insert.chunk-size:1000}")
+    private int batchChunkSize;
+
     public Mono<Media> createMedia(Media media) {
-        return mediaRepository.save(media);
+        return mediaRepository.save(media)
+                .doFinally(signal -> catalogVersion.bump());
+    }
+
+    // Inserts a stream of media in multi-row chunks, all within a single transaction
+    public Flux<BatchInsertResult> createMediaBatch(Flux<Media> media) {
+        return batchTransaction.run(media, rows -> rows.buffer(batchChunkSize)
+                .index()
+                .concatMap(chunk -> mediaRepository.insertAll(chunk.getT2())
+                        .collectMap(Media::getTitle, Function.identity(), HashMap::new)
+                        .flatMapIterable(inserted -> BatchInserts.match(chunk.getT1() * batchChunkSize,
+                                chunk.getT2(), inserted, Media::getTitle, Media::getId))))
+                .doFinally(signal -> catalogVersion.bump());
+    }
+
+    public Flux<Media> getAllMedia(long after, Integer limit) {
+        return mediaRepository.findPage(after, limit);
     }
 
-    public Flux<Media> getAllMedia() {
-        return mediaRepository.findAll();
+    // Filtered and sorted by the database; the plain keyset page when there is neither
+    public Flux<Media> getMedia(MediaFilter filter, long after, Sort sort, Integer limit) {
+        if (sort.isUnsorted() && filter.equals(new MediaFilter())) {
+            return getAllMedia(after, limit);
+        }
+        return mediaRepository.findFiltered(filter, after, sort, limit);
     }
 
+    // Served from the cache; misses are loaded without blocking and shared by concurrent callers.
+    // The load is subscribed on the cache's executor rather than inside its map
+    // lock, as the connection pool may otherwise run other requests' callbacks
+    // (including invalidations of this key) on the locking thread
     public Mono<Media> getMediaById(long id) {
-        return mediaRepository.findById(id);
+        return Mono.fromFuture(() -> mediaCache.get(id, (key, executor) -> mediaRepository.findById(key)
+                .subscribeOn(Schedulers.fromExecutor(executor)).toFuture()),
+                true);
     }
 
+    public CacheStatistics getCacheStats() {
+        return CacheStatistics.of(mediaCache);
+    }
+
+    public Mono<MediaStats> getMediaStats(Media.MediaType type, LocalDate releasedFrom, LocalDate releasedTo,
+            double ratedAbove) {
+        return mediaRepository.computeStats(type == null ? null : type.name(), releasedFrom, releasedTo, ratedAbove);
+    }
+
+    // Leaves the average rating and subscriber count alone, so an update cannot overwrite the ratings
+    // flushed since the client read the media; empty for unknown media
     public Mono<Media> updateMedia(Media media) {
-        return mediaRepository.findById(media.getId())
-                .flatMap(existingMedia -> mediaRepository.save(media));
+        return mediaRepository.updateDetails(media.getId(), media.getTitle(), media.getReleaseDate(),
+                media.getType() == null ? null : media.getType().name())
+                .doOnSuccess(saved -> mediaCache.synchronous().invalidate(media.getId()))
+                .doFinally(signal -> catalogVersion.bump());
     }
 
-    public Mono<Media> deleteMedia(long id) {
+    // Tallied in memory until the next flush adds it to the average; empty for unknown media, and
+    // an error while too many of its ratings are still waiting for a flush
+    public Mono<Media> rateMedia(long id, double rating) {
         return getMediaById(id)
-                .doOnSuccess(m -> {
-                    mediaRepository.deleteById(id);
-                });
+                .flatMap(media -> ratingAccumulator.add(id, rating) ? Mono.just(media)
+                        : Mono.error(new TransientDataAccessResourceException(
+                                "Too many ratings of media " + id + " are waiting to be written")));
+    }
+
+    public Mono<Media> deleteMedia(long id) {
+        return mediaRepository.deleteReturningById(id)
+                .doOnSuccess(deleted -> mediaCache.synchronous().invalidate(id))
+                .doFinally(signal -> catalogVersion.bump());
     }
 
     public Flux<Long> getUsersByMediaId(long id) {
         return relationshipRepository.findByMediaId(id).map(r -> r.getUserId());
     }
 
+    // Sorted and cut to size by a single join in the database, streamed as the rows arrive
+    public Flux<User> getSubscribers(long mediaId, Sort sort, Integer limit) {
+        return userRepository.findSubscribers(mediaId, sort, limit);
+    }
+
+    // Ranked in memory by the co-subscription graph, then resolved through the cache;
+    // media deleted since the graph last caught up are skipped
+    public Flux<RelatedMedia> getRelatedMedia(long id, int limit) {
+        return Flux.defer(() -> Flux.fromIterable(coSubscriptionGraph.getRelated(id, limit).entrySet()))
+                .flatMapSequential(related -> getMediaById(related.getKey())
+                        .map(media -> new RelatedMedia(media, related.getValue())));
+    }
+
+    public Flux<MediaUsers> getUsersByMediaIds(List<Long> mediaIds) {
+        if (mediaIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return relationshipRepository.findByMediaIds(mediaIds.toArray(Long[]::new))
+                .bufferUntilChanged(Relationship::getMediaId)
+                .map(group -> new MediaUsers(group.get(0).getMediaId(),
+                        group.stream().map(Relationship::getUserId).toList()));
+    }
+
+    public Mono<Long> getUserCountByMediaId(long id) {
+        return getMediaById(id).map(Media::getSubscriberCount);
+    }
+
     public Mono<Relationship> createRelationship(Relationship relationship) {
-        return relationshipRepository.save(relationship);
+        return relationshipRepository.insertReturning(relationship.getMediaId(), relationship.getUserId())
+                .doOnSuccess(created -> mediaCache.synchronous().invalidate(relationship.getMediaId()))
+                .doFinally(signal -> catalogVersion.bump());
+    }
+
+    public Flux<BatchInsertResult> createRelationshipBatch(Flux<Relationship> relationships) {
+        return batchTransaction.run(relationships, rows -> rows.buffer(batchChunkSize)
+                .index()
+                .concatMap(chunk -> relationshipRepository.insertAll(chunk.getT2())
+                        .collectMap(Function.identity(), Function.identity(), HashMap::new)
+                        .doOnNext(inserted -> mediaCache.synchronous().invalidateAll(
+                                inserted.keySet().stream().map(Relationship::getMediaId).toList()))
+                        .flatMapIterable(inserted -> BatchInserts.match(chunk.getT1() * batchChunkSize,
+                                chunk.getT2(), inserted, Function.identity(), rel -> null))))
+                .doFinally(signal -> catalogVersion.bump());
     }
 
     public Mono<Relationship> deleteRelationship(long mediaId, long userId) {
-        return relationshipRepository.findAllById(Flux.just(mediaId))
-                .filter(rel -> rel.getUserId() == userId)
-                .next()
-                .flatMap(rel -> {
-                    relationshipRepository.delete(rel);
-                    return Mono.just(rel);
-                });
+        return relationshipRepository.deleteReturning(mediaId, userId)
+                .doOnSuccess(deleted -> mediaCache.synchronous().invalidate(mediaId))
+                .doFinally(signal -> catalogVersion.bump());
     }
 
 }
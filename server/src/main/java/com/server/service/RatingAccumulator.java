@@ -0,0 +1,163 @@
+package com.server.service;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import com.server.model.Media;
+import com.server.repository.MediaRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Tallies submitted ratings in memory and adds them to the media's averages in
+ * one batched update per interval, so a burst of ratings for the same media
+ * costs one row update per flush instead of one per rating.
+ *
+ * Each media's tally is a single {@link LongAdder}: a rating adds one to the
+ * count held in the high bits and its value in hundredths to the total in the
+ * low bits. Concurrent ratings land on separate cells instead of retrying on
+ * one, and since a rating is a single addition, a flush always reads whole
+ * ratings, never the count of one without its value. The 24 count bits allow
+ * 16 million ratings of one media per interval. Every interval, even while a
+ * flush is still running, media holding {@value #MAX_PENDING_RATINGS} or more
+ * are marked full, and their ratings are refused until a flush takes them. The
+ * check is a set lookup, so it costs adds nothing, and the remaining half of
+ * the count bits absorbs what arrives in between. Tallies a failed flush could
+ * not write are kept apart, unpacked, so they never add to that count.
+ */
+@Service
+@Slf4j
+public class RatingAccumulator {
+
+    private static final int COUNT_SHIFT = 40;
+    private static final long TOTAL_MASK = (1L << COUNT_SHIFT) - 1;
+    private static final long MAX_PENDING_RATINGS = 1L << 23;
+
+    @Autowired
+    private MediaRepository mediaRepository;
+
+    @Autowired
+    private AsyncCache<Long, Media> mediaCache;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Value("${ratings.flush-interval:1s}")
+    private Duration flushInterval;
+
+    @Value("${ratings.shutdown-timeout:10s}")
+    private Duration shutdownTimeout;
+
+    // Entries stay once flushed, as a rating may still be adding to a removed tally
+    private final Map<Long, LongAdder> tallies = new ConcurrentHashMap<>();
+    // Taken by a flush that failed, for the next one to retry
+    private final Map<Long, Tally> unwritten = new ConcurrentHashMap<>();
+    private final Set<Long> full = ConcurrentHashMap.newKeySet();
+    private Disposable flusher;
+
+    @PostConstruct
+    public void start() {
+        // Ticks arriving while a slow flush runs are dropped; the next flush takes their ratings
+        flusher = Flux.interval(flushInterval)
+                .doOnNext(tick -> markFull())
+                .onBackpressureDrop()
+                .concatMap(tick -> flush(), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.dispose();
+        flush().block(shutdownTimeout);
+    }
+
+    // Rounded to hundredths, the precision of the average_rating column; false when the
+    // media already has too many ratings waiting for the next flush
+    public boolean add(long mediaId, double rating) {
+        if (full.contains(mediaId)) {
+            return false;
+        }
+        long hundredths = Math.round(rating * 100);
+        tallies.computeIfAbsent(mediaId, id -> new LongAdder()).add((1L << COUNT_SHIFT) + hundredths);
+        return true;
+    }
+
+    private void markFull() {
+        tallies.forEach((mediaId, tally) -> {
+            if (tally.sum() >>> COUNT_SHIFT >= MAX_PENDING_RATINGS) {
+                full.add(mediaId);
+            }
+        });
+    }
+
+    // Takes every tally, along with those a failed flush left, and writes them in ID order, the
+    // order row locks are taken in; tallies are kept for the next flush if the update fails, and
+    // dropped for media deleted meanwhile
+    private Mono<Void> flush() {
+        return Mono.defer(() -> {
+            Map<Long, Tally> taken = new TreeMap<>();
+            unwritten.keySet().forEach(mediaId -> {
+                Tally tally = unwritten.remove(mediaId);
+                if (tally != null) {
+                    taken.put(mediaId, tally);
+                }
+            });
+            tallies.forEach((mediaId, tally) -> {
+                long packed = tally.sumThenReset();
+                full.remove(mediaId);
+                if (packed != 0) {
+                    taken.merge(mediaId, new Tally(packed >>> COUNT_SHIFT, packed & TOTAL_MASK), Tally::plus);
+                }
+            });
+            if (taken.isEmpty()) {
+                return Mono.empty();
+            }
+
+            Long[] ids = taken.keySet().toArray(Long[]::new);
+            Long[] totals = taken.values().stream().map(Tally::total).toArray(Long[]::new);
+            Long[] counts = taken.values().stream().map(Tally::count).toArray(Long[]::new);
+            Set<Long> deleted = new HashSet<>(taken.keySet());
+            return mediaRepository.addRatings(ids, totals, counts)
+                    .doOnNext(media -> {
+                        deleted.remove(media.getId());
+                        mediaCache.synchronous().invalidate(media.getId());
+                    })
+                    .then()
+                    .doOnSuccess(flushed -> {
+                        deleted.forEach(tallies::remove);
+                        log.debug("Flushed the ratings of {} media.", taken.size() - deleted.size());
+                    })
+                    .doFinally(signal -> catalogVersion.bump())
+                    .onErrorResume(e -> {
+                        log.warn("Failed to flush the ratings of {} media, retrying with the next flush: {}",
+                                taken.size(), e.getMessage());
+                        taken.forEach((mediaId, tally) -> unwritten.merge(mediaId, tally, Tally::plus));
+                        return Mono.empty();
+                    });
+        });
+    }
+
+    // The ratings of one media and their total in hundredths
+    private record Tally(long count, long total) {
+
+        private Tally plus(Tally other) {
+            return new Tally(count + other.count, total + other.total);
+        }
+    }
+}
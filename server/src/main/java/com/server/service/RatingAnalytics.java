@@ -0,0 +1,198 @@
+package com.server.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.server.model.Change;
+import com.server.model.Media;
+import com.server.model.RatingBucket;
+import com.server.model.RatingDistribution;
+import com.server.repository.MediaRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+
+/**
+ * Rating distributions of the catalog per media type and release decade, kept
+ * in memory so percentiles and histograms are answered without scanning the
+ * media table.
+ *
+ * Ratings have two decimals between 0 and 10, so each slice simply counts the
+ * media at each of the 1001 possible values. Unlike an approximate quantile
+ * sketch, these counts are exact, merge by addition and, since every media's
+ * current value is remembered, also support removing a rating on update or
+ * delete. They are loaded from the table on startup and then follow the change
+ * feed, which delivers every committed media write once and the writes to each
+ * media in commit order, whichever path made them.
+ */
+@Service
+@DependsOn("flywayInitializer")
+@Slf4j
+public class RatingAnalytics {
+
+    private static final int SCALE = 100;
+    private static final int VALUES = 10 * SCALE + 1;
+
+    @Autowired
+    @Qualifier("mediaRepository")
+    private MediaRepository mediaRepository;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<Slice, AtomicLongArray> counts = new ConcurrentHashMap<>();
+    private final Map<Long, Placement> placements = new ConcurrentHashMap<>();
+    private Disposable subscription;
+
+    private record Slice(Media.MediaType type, int decade) {
+    }
+
+    private record Placement(Slice slice, int value) {
+    }
+
+    // A change seen twice is harmless, as placing a media replaces its previous placement
+    @PostConstruct
+    public void load() {
+        subscription = changeFeed.follow(Change.Entity.MEDIA, () -> {
+            long start = System.nanoTime();
+            mediaRepository.findAll().doOnNext(this::place).blockLast();
+            log.info("Loaded the ratings of {} media in {} ms.", placements.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }, this::apply);
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscription.dispose();
+    }
+
+    /**
+     * Distributions of the media matching the type and decade (null for all),
+     * merged into one, or one per type and/or decade present in the catalog.
+     */
+    public List<RatingDistribution> getDistributions(Media.MediaType type, Integer decade, boolean byType,
+            boolean byDecade, double bucketWidth) {
+        int bucketValues = (int) Math.round(bucketWidth * SCALE);
+        if (bucketValues < 1 || bucketValues >= VALUES) {
+            throw new IllegalArgumentException("bucketWidth must be between 0.01 and 10");
+        }
+
+        Map<Slice, long[]> groups = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .filter(entry -> type == null || entry.getKey().type() == type)
+                .filter(entry -> decade == null || entry.getKey().decade() == decade)
+                .sorted(Map.Entry.comparingByKey(Comparator
+                        .comparing(Slice::type).thenComparingInt(Slice::decade)))
+                .forEach(entry -> {
+                    Slice group = new Slice(byType ? entry.getKey().type() : null,
+                            byDecade ? entry.getKey().decade() : 0);
+                    long[] merged = groups.computeIfAbsent(group, key -> new long[VALUES]);
+                    AtomicLongArray slice = entry.getValue();
+                    for (int value = 0; value < VALUES; value++) {
+                        merged[value] += slice.get(value);
+                    }
+                });
+        if (groups.isEmpty() && !byType && !byDecade) {
+            groups.put(new Slice(null, 0), new long[VALUES]);
+        }
+
+        // Slices are kept once emptied by deletes, but not listed as groups
+        List<RatingDistribution> distributions = new ArrayList<>();
+        groups.forEach((group, merged) -> {
+            RatingDistribution distribution = describe(merged, bucketValues, byType ? group.type() : type,
+                    byDecade ? Integer.valueOf(group.decade()) : decade);
+            if (distribution.getCount() > 0 || (!byType && !byDecade)) {
+                distributions.add(distribution);
+            }
+        });
+        return distributions;
+    }
+
+    private static RatingDistribution describe(long[] merged, int bucketValues, Media.MediaType type,
+            Integer decade) {
+        long count = 0;
+        for (long valueCount : merged) {
+            count += valueCount;
+        }
+
+        int bucketCount = (VALUES - 1 + bucketValues - 1) / bucketValues;
+        long[] buckets = new long[bucketCount];
+        for (int value = 0; value < VALUES; value++) {
+            buckets[Math.min(value / bucketValues, bucketCount - 1)] += merged[value];
+        }
+        List<RatingBucket> histogram = new ArrayList<>(bucketCount);
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            histogram.add(new RatingBucket((double) bucket * bucketValues / SCALE,
+                    (double) Math.min((bucket + 1) * bucketValues, VALUES - 1) / SCALE, buckets[bucket]));
+        }
+
+        return new RatingDistribution(type, decade, count, percentile(merged, count, 0.50),
+                percentile(merged, count, 0.90), percentile(merged, count, 0.99), histogram);
+    }
+
+    // Nearest-rank: the smallest rating with at least ceil(p * count) media at or below it
+    private static Double percentile(long[] merged, long count, double p) {
+        if (count == 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(p * count));
+        long seen = 0;
+        for (int value = 0; value < VALUES; value++) {
+            seen += merged[value];
+            if (seen >= rank) {
+                return (double) value / SCALE;
+            }
+        }
+        return 10.0;
+    }
+
+    private void apply(Change change) {
+        try {
+            Media media = objectMapper.readValue(change.getData(), Media.class);
+            if (change.getOperation() == Change.Operation.DELETE) {
+                remove(media.getId());
+            } else {
+                place(media);
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("Skipping unreadable change {}: {}", change.getSeq(), e.getMessage());
+        }
+    }
+
+    private void place(Media media) {
+        Slice slice = new Slice(media.getType(), media.getReleaseDate().getYear() / 10 * 10);
+        int value = (int) Math.round(Math.min(10, Math.max(0, media.getAverageRating())) * SCALE);
+        Placement placement = new Placement(slice, value);
+        Placement previous = placements.put(media.getId(), placement);
+        if (!placement.equals(previous)) {
+            if (previous != null) {
+                counts.get(previous.slice()).decrementAndGet(previous.value());
+            }
+            counts.computeIfAbsent(slice, key -> new AtomicLongArray(VALUES)).incrementAndGet(value);
+        }
+    }
+
+    private void remove(long mediaId) {
+        Placement previous = placements.remove(mediaId);
+        if (previous != null) {
+            counts.get(previous.slice()).decrementAndGet(previous.value());
+        }
+    }
+}
@@ -1,14 +1,31 @@
 package com.server.service;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Function;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import com.server.model.BatchInsertResult;
+import com.server.model.CacheStatistics;
+import com.server.model.Media;
+import com.server.model.MediaSummary;
+import com.server.model.Relationship;
 import com.server.model.User;
+import com.server.model.UserMedia;
+import com.server.model.UserMediaRow;
+import com.server.model.UserWithMedia;
+import com.server.repository.BatchTransaction;
 import com.server.repository.RelationshipRepository;
 import com.server.repository.UserRepository;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @Service
 public class UserService {
@@ -19,31 +36,102 @@ public class UserService {
     @Autowired
     private RelationshipRepository relationshipRepository;
 
+    @Autowired
+    private AsyncCache<Long, User> userCache;
+
+    @Autowired
+    private AsyncCache<Long, Media> mediaCache;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private BatchTransaction batchTransaction;
+
+    @Value("${batch.insert.chunk-size:1000}")
+    private int batchChunkSize;
+
     public Mono<User> createUser(User user) {
-        return userRepository.save(user);
+        return userRepository.save(user)
+                .doFinally(signal -> catalogVersion.bump());
     }
 
-    public Flux<User> getAllUsers() {
-        return userRepository.findAll();
+    // Inserts a stream of users in multi-row chunks, all within a single transaction
+    public Flux<BatchInsertResult> createUserBatch(Flux<User> users) {
+        return batchTransaction.run(users, rows -> rows.buffer(batchChunkSize)
+                .index()
+                .concatMap(chunk -> userRepository.insertAll(chunk.getT2())
+                        .collectMap(User::getName, Function.identity(), HashMap::new)
+                        .flatMapIterable(inserted -> BatchInserts.match(chunk.getT1() * batchChunkSize,
+                                chunk.getT2(), inserted, User::getName, User::getId))))
+                .doFinally(signal -> catalogVersion.bump());
     }
 
+    public Flux<User> getAllUsers(long after, Integer limit) {
+        return userRepository.findPage(after, limit);
+    }
+
+    // Users with their media from a single join; each user's rows arrive together
+    public Flux<UserWithMedia> getAllUsersWithMedia(long after, Integer limit) {
+        return userRepository.findPageWithMedia(after, limit)
+                .bufferUntilChanged(UserMediaRow::getUserId)
+                .map(rows -> {
+                    UserMediaRow user = rows.get(0);
+                    return new UserWithMedia(user.getUserId(), user.getName(), user.getAge(), user.getGender(),
+                            rows.stream()
+                                    .filter(row -> row.getMediaId() != null)
+                                    .map(row -> new MediaSummary(row.getMediaId(), row.getTitle(),
+                                            row.getReleaseDate(), row.getType()))
+                                    .toList());
+                });
+    }
+
+    // Served from the cache; misses are loaded without blocking and shared by concurrent callers,
+    // outside the cache's map lock (see MediaService.getMediaById)
     public Mono<User> getUserById(long id) {
-        return userRepository.findById(id);
+        return Mono.fromFuture(() -> userCache.get(id, (key, executor) -> userRepository.findById(key)
+                .subscribeOn(Schedulers.fromExecutor(executor)).toFuture()),
+                true);
+    }
+
+    public CacheStatistics getCacheStats() {
+        return CacheStatistics.of(userCache);
     }
 
     public Flux<Long> getMediaByUserId(long id) {
         return relationshipRepository.findByUserId(id).map(r -> r.getMediaId());
     }
 
+    public Flux<MediaSummary> getMediaSummariesByUserId(long id) {
+        return userRepository.findMediaSummaries(id);
+    }
+
+    public Flux<UserMedia> getMediaByUserIds(List<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return relationshipRepository.findByUserIds(userIds.toArray(Long[]::new))
+                .bufferUntilChanged(Relationship::getUserId)
+                .map(group -> new UserMedia(group.get(0).getUserId(),
+                        group.stream().map(Relationship::getMediaId).toList()));
+    }
+
     public Mono<User> updateUser(User user) {
         return userRepository.findById(user.getId())
-                .flatMap(existingUser -> userRepository.save(user));
+                .flatMap(existingUser -> userRepository.save(user))
+                .doOnSuccess(saved -> userCache.synchronous().invalidate(user.getId()))
+                .doFinally(signal -> catalogVersion.bump());
     }
 
     public Mono<User> deleteUser(long id) {
-        return getUserById(id)
-                .doOnSuccess(u -> {
-                    userRepository.deleteById(id);
-                });
+        return userRepository.deleteReturningById(id)
+                .doOnSuccess(deleted -> {
+                    userCache.synchronous().invalidate(id);
+                    // The user's media lost a subscriber; deletes are rare enough to drop them all
+                    if (deleted != null) {
+                        mediaCache.synchronous().invalidateAll();
+                    }
+                })
+                .doFinally(signal -> catalogVersion.bump());
     }
 }
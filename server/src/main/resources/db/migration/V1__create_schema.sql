@@ -0,0 +1,26 @@
+CREATE TABLE IF NOT EXISTS media (
+    id BIGSERIAL PRIMARY KEY,            
+    title VARCHAR(255) NOT NULL UNIQUE,         
+    release_date DATE NOT NULL,          
+    average_rating DECIMAL(4, 2) CHECK (average_rating  >= 0 AND average_rating  <= 10), 
+    type VARCHAR(10) NOT NULL CHECK (type IN ('MOVIE', 'TV_SHOW')),
+    subscriber_count BIGINT NOT NULL DEFAULT 0
+);
+
+-- Databases created by the former schema.sql script before the counter existed
+ALTER TABLE media ADD COLUMN IF NOT EXISTS subscriber_count BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(100) NOT NULL UNIQUE,
+    age INTEGER NOT NULL,
+    gender VARCHAR(10) NOT NULL CHECK (gender IN ('MALE', 'FEMALE', 'OTHER'))
+);
+
+CREATE TABLE IF NOT EXISTS relationships (
+    user_id BIGINT NOT NULL,
+    media_id BIGINT NOT NULL,
+    PRIMARY KEY (user_id, media_id),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    FOREIGN KEY (media_id) REFERENCES media(id) ON DELETE CASCADE
+);
@@ -1,26 +1,3 @@
-CREATE TABLE IF NOT EXISTS media (
-    id BIGSERIAL PRIMARY KEY,            
-    title VARCHAR(255) NOT NULL UNIQUE,         
-    release_date DATE NOT NULL,          
-    average_rating DECIMAL(4, 2) CHECK (average_rating  >= 0 AND average_rating  <= 10), 
-    type VARCHAR(10) NOT NULL CHECK (type IN ('MOVIE', 'TV_SHOW')) 
-);
-
-CREATE TABLE IF NOT EXISTS users (
-    id BIGSERIAL PRIMARY KEY,
-    name VARCHAR(100) NOT NULL UNIQUE,
-    age INTEGER NOT NULL,
-    gender VARCHAR(10) NOT NULL CHECK (gender IN ('MALE', 'FEMALE', 'OTHER'))
-);
-
-CREATE TABLE IF NOT EXISTS relationships (
-    user_id BIGINT NOT NULL,
-    media_id BIGINT NOT NULL,
-    PRIMARY KEY (user_id, media_id),
-    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
-    FOREIGN KEY (media_id) REFERENCES media(id) ON DELETE CASCADE
-);
-
 -- Insert Movies (3 from the 80s)
 INSERT INTO media (title, release_date, average_rating, type)
 VALUES 
@@ -93,4 +70,8 @@ INSERT INTO relationships (user_id, media_id) VALUES
     (5, 17), -- Elliot -> The Office
     (4, 18), -- Diana -> The Mandalorian
     (5, 18)  -- Elliot -> The Mandalorian
-ON CONFLICT DO NOTHING;
\ No newline at end of file
+ON CONFLICT DO NOTHING;
+
+-- Resynchronise the maintained subscriber counters with the seeded relationships
+UPDATE media m
+SET subscriber_count = (SELECT count(*) FROM relationships r WHERE r.media_id = m.id);
@@ -0,0 +1,7 @@
+-- Reverse lookups: the primary key (user_id, media_id) only serves lookups by user
+CREATE INDEX IF NOT EXISTS relationships_media_id_user_id_idx ON relationships (media_id, user_id);
+
+-- Range filters and sorts used by the reports
+CREATE INDEX IF NOT EXISTS media_release_date_idx ON media (release_date);
+CREATE INDEX IF NOT EXISTS media_average_rating_idx ON media (average_rating);
+CREATE INDEX IF NOT EXISTS users_age_idx ON users (age);
@@ -0,0 +1,82 @@
+-- Every insert, update and delete on the catalog tables, in commit order, with the
+-- row as the API renders it (new row, or old row for deletes)
+CREATE TABLE IF NOT EXISTS change_log (
+    seq BIGSERIAL PRIMARY KEY,
+    entity VARCHAR(20) NOT NULL CHECK (entity IN ('MEDIA', 'USER', 'RELATIONSHIP')),
+    operation VARCHAR(10) NOT NULL CHECK (operation IN ('INSERT', 'UPDATE', 'DELETE')),
+    data JSONB NOT NULL,
+    changed_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS change_log_changed_at_idx ON change_log (changed_at);
+
+-- release_date -> releaseDate, matching the JSON of the API models
+CREATE OR REPLACE FUNCTION camel_case_keys(row_data JSONB) RETURNS JSONB
+LANGUAGE sql IMMUTABLE AS $$
+    SELECT jsonb_object_agg(
+               (SELECT string_agg(CASE WHEN i = 1 THEN part ELSE initcap(part) END, '' ORDER BY i)
+                FROM unnest(string_to_array(key, '_')) WITH ORDINALITY AS parts(part, i)),
+               value)
+    FROM jsonb_each(row_data)
+$$;
+
+-- Taken before a statement touches any row and held until commit, this lock
+-- serializes the transactions writing the catalog, so sequence order is commit
+-- order: a reader that has seen seq N can never later find a committed row below
+-- N. Taking it first, before any row lock, keeps it from deadlocking with them
+CREATE OR REPLACE FUNCTION lock_change_log() RETURNS TRIGGER
+LANGUAGE plpgsql AS $$
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('change_log'));
+    RETURN NULL;
+END;
+$$;
+
+-- Statement-level, so a multi-row insert logs its rows with one statement and sends
+-- one notification. Notifications are only delivered on commit and carry no data;
+-- listeners read change_log instead
+CREATE OR REPLACE FUNCTION log_catalog_changes() RETURNS TRIGGER
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO change_log (entity, operation, data)
+        SELECT TG_ARGV[0], TG_OP, camel_case_keys(to_jsonb(changed)) FROM old_rows changed;
+    ELSE
+        INSERT INTO change_log (entity, operation, data)
+        SELECT TG_ARGV[0], TG_OP, camel_case_keys(to_jsonb(changed)) FROM new_rows changed;
+    END IF;
+    IF FOUND THEN
+        PERFORM pg_notify('catalog_changes', TG_ARGV[0]);
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER media_lock_log BEFORE INSERT OR UPDATE OR DELETE ON media
+    FOR EACH STATEMENT EXECUTE FUNCTION lock_change_log();
+CREATE TRIGGER users_lock_log BEFORE INSERT OR UPDATE OR DELETE ON users
+    FOR EACH STATEMENT EXECUTE FUNCTION lock_change_log();
+CREATE TRIGGER relationships_lock_log BEFORE INSERT OR UPDATE OR DELETE ON relationships
+    FOR EACH STATEMENT EXECUTE FUNCTION lock_change_log();
+
+-- Transition tables allow a single event per trigger, hence three triggers per table
+CREATE TRIGGER media_insert_log AFTER INSERT ON media
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION log_catalog_changes('MEDIA');
+CREATE TRIGGER media_update_log AFTER UPDATE ON media
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION log_catalog_changes('MEDIA');
+CREATE TRIGGER media_delete_log AFTER DELETE ON media
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION log_catalog_changes('MEDIA');
+
+CREATE TRIGGER users_insert_log AFTER INSERT ON users
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION log_catalog_changes('USER');
+CREATE TRIGGER users_update_log AFTER UPDATE ON users
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION log_catalog_changes('USER');
+CREATE TRIGGER users_delete_log AFTER DELETE ON users
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION log_catalog_changes('USER');
+
+CREATE TRIGGER relationships_insert_log AFTER INSERT ON relationships
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION log_catalog_changes('RELATIONSHIP');
+CREATE TRIGGER relationships_update_log AFTER UPDATE ON relationships
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION log_catalog_changes('RELATIONSHIP');
+CREATE TRIGGER relationships_delete_log AFTER DELETE ON relationships
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION log_catalog_changes('RELATIONSHIP');
@@ -0,0 +1,5 @@
+-- Running totals of the ratings submitted through POST /media/{id}/ratings, from which
+-- average_rating is recomputed. An average set before the first rating counts for
+-- nothing once ratings arrive
+ALTER TABLE media ADD COLUMN IF NOT EXISTS rating_count BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE media ADD COLUMN IF NOT EXISTS rating_sum NUMERIC NOT NULL DEFAULT 0;
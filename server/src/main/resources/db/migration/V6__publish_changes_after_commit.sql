@@ -0,0 +1,61 @@
+-- V4 numbered changes as they were written, and serialized every catalog write on one
+-- advisory lock so that numbering would follow commit order. Writers now only queue their
+-- changes here, and publish_changes() numbers them into change_log once committed
+DROP TRIGGER IF EXISTS media_lock_log ON media;
+DROP TRIGGER IF EXISTS users_lock_log ON users;
+DROP TRIGGER IF EXISTS relationships_lock_log ON relationships;
+DROP FUNCTION IF EXISTS lock_change_log();
+
+CREATE TABLE IF NOT EXISTS change_log_pending (
+    id BIGSERIAL PRIMARY KEY,
+    entity VARCHAR(20) NOT NULL,
+    operation VARCHAR(10) NOT NULL,
+    data JSONB NOT NULL,
+    changed_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+-- Same rows as before, queued instead of numbered. The notification, delivered on
+-- commit, asks the server to publish them
+CREATE OR REPLACE FUNCTION log_catalog_changes() RETURNS TRIGGER
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO change_log_pending (entity, operation, data)
+        SELECT TG_ARGV[0], TG_OP, camel_case_keys(to_jsonb(changed)) FROM old_rows changed;
+    ELSE
+        INSERT INTO change_log_pending (entity, operation, data)
+        SELECT TG_ARGV[0], TG_OP, camel_case_keys(to_jsonb(changed)) FROM new_rows changed;
+    END IF;
+    IF FOUND THEN
+        PERFORM pg_notify('catalog_changes_pending', TG_ARGV[0]);
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+-- Moves the committed changes to change_log, where they get their sequence numbers.
+-- Publishers take turns on the lock, so each one's numbers are visible before the next
+-- one's: a reader that has seen seq N can never later find a row below N. Only
+-- publishers wait on it, never catalog writes.
+--
+-- Changes are numbered in the order they were written, so the changes to any one row
+-- follow its commit order (a later write to the row waits for the earlier one's commit);
+-- unrelated changes committed close together may be numbered in either order
+CREATE OR REPLACE FUNCTION publish_changes() RETURNS BIGINT
+LANGUAGE plpgsql AS $$
+DECLARE
+    published BIGINT;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('change_log'));
+    WITH moved AS (
+        DELETE FROM change_log_pending RETURNING *
+    )
+    INSERT INTO change_log (entity, operation, data, changed_at)
+    SELECT entity, operation, data, changed_at FROM moved ORDER BY id;
+    GET DIAGNOSTICS published = ROW_COUNT;
+    IF published > 0 THEN
+        PERFORM pg_notify('catalog_changes', 'PUBLISHED');
+    END IF;
+    RETURN published;
+END;
+$$;
@@ -0,0 +1,93 @@
+package com.server.repository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import org.reactivestreams.Publisher;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs every statement as {@code EXPLAIN} of itself, with the same bindings,
+ * and records the plans instead of returning results. Repositories built on it
+ * send their statements exactly as in production, but see no rows, and nothing
+ * they would write is written.
+ */
+class ExplainingConnectionFactory implements ConnectionFactory {
+
+    record Explained(String sql, String plan) {
+    }
+
+    private final ConnectionFactory delegate;
+    private final List<Explained> explained = new CopyOnWriteArrayList<>();
+
+    ExplainingConnectionFactory(ConnectionFactory delegate) {
+        this.delegate = delegate;
+    }
+
+    // The statements explained since the last call, in the order they were executed
+    List<Explained> takeExplained() {
+        List<Explained> taken = List.copyOf(explained);
+        explained.clear();
+        return taken;
+    }
+
+    @Override
+    public Publisher<? extends Connection> create() {
+        return Mono.from(delegate.create())
+                .map(connection -> proxy(Connection.class, connection, (method, args) -> {
+                    if (method.getName().equals("createStatement")) {
+                        String sql = (String) args[0];
+                        return explaining(sql, connection.createStatement("EXPLAIN " + sql));
+                    }
+                    return method.invoke(connection, args);
+                }));
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return delegate.getMetadata();
+    }
+
+    private Statement explaining(String sql, Statement explain) {
+        Statement[] self = new Statement[1];
+        self[0] = proxy(Statement.class, explain, (method, args) -> {
+            if (method.getName().equals("execute")) {
+                return Flux.from(explain.execute())
+                        .concatMap(result -> result.map((row, metadata) -> row.get(0, String.class)))
+                        .collect(Collectors.joining("\n"))
+                        .doOnNext(plan -> explained.add(new Explained(sql, plan)))
+                        .thenMany(Flux.empty());
+            }
+            Object result = method.invoke(explain, args);
+            // Keep the caller on the proxy when the statement returns itself for chaining
+            return result == explain ? self[0] : result;
+        });
+        return self[0];
+    }
+
+    private interface Handler {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+
+    private static <T> T proxy(Class<T> type, T target, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            try {
+                return handler.invoke(method, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, invocationHandler));
+    }
+}
@@ -0,0 +1,348 @@
+package com.server.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.config.AbstractR2dbcConfiguration;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import com.server.model.MediaFilter;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import reactor.core.publisher.Flux;
+
+/**
+ * Checks that the repository queries that look rows up use an index. The
+ * migrations are applied to an empty PostgreSQL, which is then filled with
+ * enough generated rows for an index to beat a sequential scan, as on a real
+ * catalog.
+ *
+ * The repositories are the real ones, on an {@link ExplainingConnectionFactory}:
+ * each call sends its statement, built and bound exactly as in production, and
+ * gets back its plan. Inserts are not covered, as they look nothing up, nor
+ * are the unfiltered stats, which read every row by design.
+ *
+ * The database is a PostgreSQL container, and the tests are skipped when
+ * Docker is not available. Setting {@code test.postgres.url} (with
+ * {@code test.postgres.user} and {@code test.postgres.password}) runs them
+ * against an existing, empty database instead.
+ */
+class IndexUsageTest {
+
+    private static final int MEDIA = 200_000;
+    private static final int USERS = 50_000;
+    private static final int CHANGES = 200_000;
+
+    private static PostgreSQLContainer<?> container;
+    private static AnnotationConfigApplicationContext context;
+    private static ExplainingConnectionFactory connectionFactory;
+
+    private static MediaRepository mediaRepository;
+    private static UserRepository userRepository;
+    private static RelationshipRepository relationshipRepository;
+    private static ChangeRepository changeRepository;
+
+    // Subscribed to by every generated user
+    private static long popularMediaId;
+    private static long someMediaId;
+    private static long someUserId;
+
+    @Configuration
+    @EnableR2dbcRepositories
+    static class RepositoryConfig extends AbstractR2dbcConfiguration {
+
+        @Override
+        public ConnectionFactory connectionFactory() {
+            return connectionFactory;
+        }
+    }
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        String url = System.getProperty("test.postgres.url");
+        String user = System.getProperty("test.postgres.user", "postgres");
+        String password = System.getProperty("test.postgres.password", "");
+        if (url == null) {
+            assumeTrue(DockerClientFactory.instance().isDockerAvailable(), "Docker is not available");
+            container = new PostgreSQLContainer<>("postgres:16-alpine");
+            container.start();
+            url = container.getJdbcUrl();
+            user = container.getUsername();
+            password = container.getPassword();
+        }
+
+        Flyway.configure()
+                .dataSource(url, user, password)
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+        generateRows(url, user, password);
+
+        connectionFactory = new ExplainingConnectionFactory(ConnectionFactories.get(
+                ConnectionFactoryOptions.parse(url.replaceFirst("^jdbc:", "r2dbc:")).mutate()
+                        .option(ConnectionFactoryOptions.USER, user)
+                        .option(ConnectionFactoryOptions.PASSWORD, password)
+                        .build()));
+        context = new AnnotationConfigApplicationContext(RepositoryConfig.class);
+        mediaRepository = context.getBean(MediaRepository.class);
+        userRepository = context.getBean(UserRepository.class);
+        relationshipRepository = context.getBean(RelationshipRepository.class);
+        changeRepository = context.getBean(ChangeRepository.class);
+    }
+
+    // Written with the triggers off, so the rows skip the change log and the generated
+    // change log rows stand on their own
+    private static void generateRows(String url, String user, String password) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, user, password);
+                Statement statement = connection.createStatement()) {
+            statement.execute("SET session_replication_role = replica");
+            long lastSeededMedia = maxId(statement, "media");
+            long lastSeededUser = maxId(statement, "users");
+            statement.execute("""
+                    INSERT INTO media (title, release_date, average_rating, type)
+                    SELECT 'Generated media ' || i,
+                           DATE '1900-01-01' + mod(i * 7919, 45000)::int,
+                           mod(i * 104729, 1001) / 100.0,
+                           CASE WHEN mod(i, 2) = 0 THEN 'MOVIE' ELSE 'TV_SHOW' END
+                    FROM generate_series(1::bigint, %d) i
+                    """.formatted(MEDIA));
+            statement.execute("""
+                    INSERT INTO users (name, age, gender)
+                    SELECT 'Generated user ' || i, 18 + mod(i, 63),
+                           CASE mod(i, 3) WHEN 0 THEN 'MALE' WHEN 1 THEN 'FEMALE' ELSE 'OTHER' END
+                    FROM generate_series(1, %d) i
+                    """.formatted(USERS));
+            popularMediaId = lastSeededMedia + 1;
+            someMediaId = lastSeededMedia + 2;
+            someUserId = lastSeededUser + 1;
+            // Every generated user subscribes to the first generated media and up to four others
+            statement.execute("""
+                    INSERT INTO relationships (user_id, media_id)
+                    SELECT %d + i, CASE WHEN k = 0 THEN %d ELSE %d + 1 + mod(i * 31 + k * 7717, %d) END
+                    FROM generate_series(1, %d) i CROSS JOIN generate_series(0, 4) k
+                    ON CONFLICT DO NOTHING
+                    """.formatted(lastSeededUser, popularMediaId, popularMediaId, MEDIA - 1, USERS));
+            // One change a minute up to now
+            statement.execute("""
+                    INSERT INTO change_log (entity, operation, data, changed_at)
+                    SELECT 'MEDIA', 'UPDATE', '{}', now() - (%d - i) * INTERVAL '1 minute'
+                    FROM generate_series(1, %d) i
+                    """.formatted(CHANGES, CHANGES));
+            statement.execute("ANALYZE");
+        }
+    }
+
+    private static long maxId(Statement statement, String table) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("SELECT coalesce(max(id), 0) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    @Test
+    void findsMediaById() {
+        assertUsesIndex(explain(mediaRepository.findById(someMediaId)), "media_pkey");
+    }
+
+    @Test
+    void pagesThroughMedia() {
+        assertUsesIndex(explain(mediaRepository.findPage(someMediaId, 100)), "media_pkey");
+    }
+
+    // /media?releasedFrom=1980-01-01&releasedTo=1989-12-31&sort=averageRating,asc
+    @Test
+    void filtersMediaByReleaseDate() {
+        MediaFilter filter = new MediaFilter(null, LocalDate.of(1980, 1, 1), LocalDate.of(1989, 12, 31), null);
+        assertUsesIndex(explain(mediaRepository.findFiltered(filter, 0, Sort.by("averageRating"), null)),
+                "media_release_date_idx");
+    }
+
+    // /media?sort=releaseDate,asc&limit=1
+    @Test
+    void sortsMediaByReleaseDate() {
+        assertUsesIndex(explain(mediaRepository.findFiltered(new MediaFilter(), 0, Sort.by("releaseDate"), 1)),
+                "media_release_date_idx");
+    }
+
+    // /media?minRating=9.9&sort=averageRating,desc
+    @Test
+    void filtersMediaByRating() {
+        MediaFilter filter = new MediaFilter(null, null, null, 9.9);
+        assertUsesIndex(explain(mediaRepository.findFiltered(filter, 0, Sort.by("averageRating").descending(), null)),
+                "media_average_rating_idx");
+    }
+
+    // /media?sort=averageRating,desc&limit=10
+    @Test
+    void sortsMediaByRating() {
+        assertUsesIndex(explain(mediaRepository.findFiltered(new MediaFilter(), 0,
+                Sort.by("averageRating").descending(), 10)), "media_average_rating_idx");
+    }
+
+    // /media/stats?releasedFrom=1980-01-01&releasedTo=1989-12-31
+    @Test
+    void computesStatsOfAReleaseDateRange() {
+        assertUsesIndex(explain(mediaRepository.computeStats(null, LocalDate.of(1980, 1, 1),
+                LocalDate.of(1989, 12, 31), 8.0)), "media_release_date_idx");
+    }
+
+    @Test
+    void addsRatingsByMediaId() {
+        assertUsesIndex(explain(mediaRepository.addRatings(new Long[] { someMediaId, someMediaId + 1 },
+                new Long[] { 500L, 700L }, new Long[] { 1L, 1L })), "media_pkey");
+    }
+
+    @Test
+    void updatesMediaById() {
+        assertUsesIndex(explain(mediaRepository.updateDetails(someMediaId, "Renamed", LocalDate.of(1999, 1, 1),
+                "MOVIE")), "media_pkey");
+    }
+
+    @Test
+    void deletesMediaById() {
+        assertUsesIndex(explain(mediaRepository.deleteReturningById(someMediaId)), "media_pkey");
+    }
+
+    @Test
+    void findsUserById() {
+        assertUsesIndex(explain(userRepository.findById(someUserId)), "users_pkey");
+    }
+
+    @Test
+    void pagesThroughUsers() {
+        assertUsesIndex(explain(userRepository.findPage(someUserId, 100)), "users_pkey");
+    }
+
+    // /user?expand=media
+    @Test
+    void pagesThroughUsersWithMedia() {
+        String plan = explain(userRepository.findPageWithMedia(someUserId, 100));
+        assertUsesIndex(plan, "users_pkey");
+        assertUsesIndex(plan, "relationships_pkey");
+    }
+
+    @Test
+    void findsMediaSummariesOfAUser() {
+        String plan = explain(userRepository.findMediaSummaries(someUserId));
+        assertUsesIndex(plan, "relationships_pkey");
+        assertUsesIndex(plan, "media_pkey");
+    }
+
+    // /media/{id}/users?expand=users
+    @Test
+    void findsSubscribers() {
+        assertUsesIndex(explain(userRepository.findSubscribers(someMediaId, Sort.unsorted(), null)),
+                "relationships_media_id_user_id_idx");
+    }
+
+    // /media/{id}/users?expand=users&sort=age,desc&limit=10; without a limit the subscribers are
+    // looked up through the relationships index and then sorted
+    @Test
+    void sortsSubscribersByAge() {
+        assertUsesIndex(explain(userRepository.findSubscribers(popularMediaId, Sort.by("age").descending(), 10)),
+                "users_age_idx");
+    }
+
+    @Test
+    void deletesUserById() {
+        assertUsesIndex(explain(userRepository.deleteReturningById(someUserId)), "users_pkey");
+    }
+
+    @Test
+    void findsSubscriptionsByUser() {
+        assertUsesIndex(explain(relationshipRepository.findByUserId(someUserId)), "relationships_pkey");
+    }
+
+    @Test
+    void findsSubscriptionsByMedia() {
+        assertUsesIndex(explain(relationshipRepository.findByMediaId(someMediaId)),
+                "relationships_media_id_user_id_idx");
+    }
+
+    @Test
+    void findsSubscriptionsByMediaIds() {
+        assertUsesIndex(explain(relationshipRepository.findByMediaIds(new Long[] { someMediaId, someMediaId + 1 })),
+                "relationships_media_id_user_id_idx");
+    }
+
+    @Test
+    void findsSubscriptionsByUserIds() {
+        assertUsesIndex(explain(relationshipRepository.findByUserIds(new Long[] { someUserId, someUserId + 1 })),
+                "relationships_pkey");
+    }
+
+    @Test
+    void deletesSubscription() {
+        assertUsesIndex(explain(relationshipRepository.deleteReturning(someMediaId, someUserId)),
+                "relationships_pkey", "relationships_media_id_user_id_idx");
+    }
+
+    @Test
+    void findsChangesAfterASequenceNumber() {
+        assertUsesIndex(explain(changeRepository.findAfter(CHANGES - 1000, 500)), "change_log_pkey");
+    }
+
+    @Test
+    void findsLatestAndOldestSequenceNumbers() {
+        assertUsesIndex(explain(changeRepository.findLatestSeq()), "change_log_pkey");
+        assertUsesIndex(explain(changeRepository.findOldestSeq()), "change_log_pkey");
+    }
+
+    @Test
+    void deletesExpiredChanges() {
+        assertUsesIndex(explain(changeRepository.deleteChangedBefore(OffsetDateTime.now().minusDays(CHANGES / 1440 - 1))),
+                "change_log_changed_at_idx");
+    }
+
+    // Runs the repository call and returns the plan of the one statement it sent
+    private static String explain(Publisher<?> call) {
+        Flux.from(call).blockLast();
+        List<ExplainingConnectionFactory.Explained> explained = connectionFactory.takeExplained();
+        assertEquals(1, explained.size(), "Expected a single statement, got " + explained);
+        return explained.get(0).sql() + "\n" + explained.get(0).plan();
+    }
+
+    // Passes when the plan scans any of the given indexes
+    private static void assertUsesIndex(String plan, String... indexes) {
+        boolean scanned = Stream.of(indexes)
+                .map(index -> Pattern.compile("Index (Only )?Scan( Backward)? using " + index + " |Bitmap Index Scan on "
+                        + index + "\\b"))
+                .anyMatch(scan -> scan.matcher(plan).find());
+        assertTrue(scanned, "Expected a scan of " + String.join(" or ", indexes) + " in:\n" + plan);
+    }
+}